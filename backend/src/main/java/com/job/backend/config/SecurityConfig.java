@@ -1,6 +1,7 @@
 package com.job.backend.config;
 
 import com.job.backend.service.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -33,6 +34,9 @@ public class SecurityConfig {
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
 
+                        // 0️⃣ Dispatch ASYNC của response streaming đã được xác thực ở request gốc
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // 1️⃣ Public endpoints
                         .requestMatchers("/api/auth/**", "/uploads/**").permitAll()
 
@@ -49,13 +53,19 @@ public class SecurityConfig {
                         // 4️⃣ Ứng viên (UNGVIEN)
                         .requestMatchers("/api/profile/**").hasAnyRole("UNGVIEN", "ADMIN")
                         .requestMatchers("/api/applications/user/**").hasAnyRole("UNGVIEN", "ADMIN")
+                        .requestMatchers("/api/recommendations/**").hasAnyRole("UNGVIEN", "ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/applications/**").hasAnyRole("UNGVIEN", "ADMIN")
+                        .requestMatchers("/api/applications/intake/**").hasAnyRole("UNGVIEN", "ADMIN")
 
                         // 5️⃣ Nhà tuyển dụng xem danh sách ứng viên, phỏng vấn, thống kê
-                        .requestMatchers("/api/applications/job/**").hasAnyRole("NTD", "ADMIN")
+                        .requestMatchers("/api/applications/job/**", "/api/applications/detail/**").hasAnyRole("NTD", "ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/api/applications/bulk-status").hasAnyRole("NTD", "ADMIN")
                         .requestMatchers("/api/interviews/**", "/api/statistics/**").hasAnyRole("NTD", "ADMIN")
 
-                        // 6️⃣ Mặc định
+                        // 6️⃣ Số liệu vận hành (cache, hàng đợi, job nền)
+                        .requestMatchers("/api/metrics/**").hasRole("ADMIN")
+
+                        // 7️⃣ Mặc định
                         .anyRequest().authenticated()
                 )
 
@@ -1,10 +1,21 @@
 package com.job.backend.controller;
 
+import com.job.backend.service.ApplicantExportService;
+import com.job.backend.service.ApplicationIntakeService;
 import com.job.backend.service.ApplicationService;
+import com.job.backend.service.JwtAuthFilter;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,6 +25,8 @@ import java.util.Map;
 public class ApplicationController {
 
     private final ApplicationService service;
+    private final ApplicantExportService exportService;
+    private final ApplicationIntakeService intakeService;
 
     // 1️⃣ Ứng viên nộp hồ sơ
     @PostMapping
@@ -21,12 +34,111 @@ public class ApplicationController {
         return service.create(req.getUngVienID(), req.getTinID(), req.getGhiChu());
     }
 
+    // 1️⃣a Nộp hồ sơ qua hàng đợi (giờ cao điểm): trả ngay phiếu 202, ghi DB theo lô phía sau
+    // Header Idempotency-Key (tùy chọn): gửi lại cùng key không tạo thêm hồ sơ; key tính riêng theo user trong token
+    @PostMapping("/intake")
+    public ResponseEntity<?> intake(
+            @RequestBody CreateRequest req,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestAttribute(name = JwtAuthFilter.USER_ID_ATTRIBUTE, required = false) Integer tokenUserId) {
+        if (tokenUserId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return ResponseEntity.accepted().body(intakeService.submit(
+                    tokenUserId, req.getUngVienID(), req.getTinID(), req.getGhiChu(), idempotencyKey));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(429).header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 1️⃣b Trạng thái phiếu nộp hồ sơ: QUEUED / SAVED (kèm UngTuyenID) / FAILED
+    // Chỉ xem được phiếu do chính mình gửi; phiếu của user khác trả 404 như key không tồn tại
+    @GetMapping("/intake/{key}")
+    public ResponseEntity<?> intakeStatus(
+            @PathVariable String key,
+            @RequestAttribute(name = JwtAuthFilter.USER_ID_ATTRIBUTE, required = false) Integer tokenUserId) {
+        if (tokenUserId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Object> result = intakeService.status(tokenUserId, key);
+        if (result == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "Không tìm thấy phiếu " + key));
+        }
+        return ResponseEntity.ok(result);
+    }
+
     // 2️⃣ Nhà tuyển dụng xem danh sách ứng viên theo tin
     @GetMapping("/job/{jobId}")
     public List<Map<String, Object>> listByJob(@PathVariable int jobId) {
         return service.getByJob(jobId);
     }
 
+    // 2️⃣a Danh sách ứng viên xếp theo mức độ phù hợp với yêu cầu của tin, có phân trang
+    // GET /api/applications/job/{jobId}?sort=match&page=1&size=20
+    @GetMapping(value = "/job/{jobId}", params = "sort=match")
+    public ResponseEntity<?> listByJobRanked(
+            @PathVariable int jobId,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Map<String, Object> result = service.getRankedByJob(jobId, page, Math.min(Math.max(size, 1), 100));
+        if (result == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "Không tìm thấy tin #" + jobId));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    // 2️⃣b Xuất danh sách ứng viên theo tin ra file (stream, không dồn vào bộ nhớ)
+    // GET /api/applications/job/{jobId}/export?format=csv|xlsx
+    @GetMapping("/job/{jobId}/export")
+    public ResponseEntity<StreamingResponseBody> exportByJob(
+            @PathVariable int jobId,
+            @RequestParam(defaultValue = "csv") String format) {
+        ApplicantExportService.Format fmt;
+        try {
+            fmt = ApplicantExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String fileName = "ung-vien-tin-" + jobId + "." + fmt.name().toLowerCase();
+        MediaType type = fmt == ApplicantExportService.Format.XLSX
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(type)
+                .body(exportService.exportByJob(jobId, fmt));
+    }
+
+    // 2️⃣c Danh sách ứng viên rút gọn (tên, ngày nộp, trạng thái), phân trang keyset
+    // GET /api/applications/job/{jobId}/summary?size=20&cursor=...
+    @GetMapping("/job/{jobId}/summary")
+    public ResponseEntity<?> listSummaryByJob(
+            @PathVariable int jobId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(service.getSummaryByJob(jobId, cursor, Math.min(Math.max(size, 1), 100)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 2️⃣d Chi tiết 1 hồ sơ ứng tuyển (kỹ năng, kinh nghiệm, ghi chú...) khi mở 1 dòng
+    @GetMapping("/detail/{ungTuyenID}")
+    public ResponseEntity<?> detail(@PathVariable int ungTuyenID) {
+        Map<String, Object> result = service.getDetail(ungTuyenID);
+        if (result == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "Không tìm thấy hồ sơ ứng tuyển #" + ungTuyenID));
+        }
+        return ResponseEntity.ok(result);
+    }
+
     // 3️⃣ Ứng viên xem lịch sử ứng tuyển
     @GetMapping("/user/{userId}")
     public List<Map<String, Object>> listByUser(@PathVariable int userId) {
@@ -41,6 +153,27 @@ public class ApplicationController {
         return service.updateStatus(ungTuyenID, req.getTrangThai(), req.getGhiChu());
     }
 
+    // 4️⃣a Cập nhật trạng thái nhiều hồ sơ trong 1 request (1 giao dịch), trả kết quả từng dòng
+    // PUT /api/applications/bulk-status  {"items":[{"ungTuyenID":1,"trangThai":"Từ chối","ghiChu":"..."}]}
+    @PutMapping("/bulk-status")
+    public ResponseEntity<?> bulkUpdateStatus(@RequestBody BulkUpdateRequest req) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (req.getItems() != null) {
+            for (BulkItem item : req.getItems()) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("UngTuyenID", item.getUngTuyenID());
+                row.put("TrangThai", item.getTrangThai());
+                row.put("GhiChu", item.getGhiChu());
+                items.add(row);
+            }
+        }
+        try {
+            return ResponseEntity.ok(service.bulkUpdateStatus(items));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // DTO nội bộ
     @Data
     public static class CreateRequest {
@@ -54,4 +187,16 @@ public class ApplicationController {
         private String trangThai;
         private String ghiChu;
     }
+
+    @Data
+    public static class BulkUpdateRequest {
+        private List<BulkItem> items;
+    }
+
+    @Data
+    public static class BulkItem {
+        private Integer ungTuyenID;
+        private String trangThai;
+        private String ghiChu;
+    }
 }
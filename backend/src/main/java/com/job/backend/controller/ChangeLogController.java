@@ -0,0 +1,35 @@
+package com.job.backend.controller;
+
+import com.job.backend.service.ChangeLogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeLogController {
+
+    private final ChangeLogService service;
+
+    /**
+     * Thay đổi trạng thái hồ sơ / lịch hẹn phỏng vấn kể từ lần đồng bộ trước.
+     * Ví dụ: /api/changes?since=120&userId=3  (ứng viên)
+     *        /api/changes?since=120&ntdId=5   (nhà tuyển dụng)
+     */
+    @GetMapping
+    public ResponseEntity<?> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) Integer ntdId,
+            @RequestParam(defaultValue = "200") int limit
+    ) {
+        try {
+            return ResponseEntity.ok(service.getChanges(userId, ntdId, since, Math.min(Math.max(limit, 1), 1000)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
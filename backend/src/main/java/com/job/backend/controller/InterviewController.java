@@ -3,7 +3,11 @@ package com.job.backend.controller;
 import com.job.backend.service.InterviewService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,16 +19,47 @@ public class InterviewController {
 
     // 1️⃣ Tạo thư mời phỏng vấn (INSERT backend)
     @PostMapping("/send")
-    public Map<String, Object> create(@RequestBody CreateRequest req) {
-        Map<String, Object> body = Map.of(
-                "ungTuyenID", req.getUngTuyenID(),
-                "ngayHen", req.getNgayHen(),
-                "diaDiem", req.getDiaDiem(),
-                "nguoiPhongVan", req.getNguoiPhongVan(),
-                "noiDungThu", req.getNoiDungThu(),
-                "emailUngVien", req.getEmailUngVien()
-        );
-        return service.createInterview(body);
+    public ResponseEntity<?> create(@RequestBody CreateRequest req) {
+        Map<String, Object> saved;
+        try {
+            saved = service.createInterview(toBody(req));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+        if (saved == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "Không tìm thấy hồ sơ ứng tuyển #" + req.getUngTuyenID()));
+        }
+        return ResponseEntity.ok(saved);
+    }
+
+    // 1️⃣a Gửi thư mời cho nhiều ứng viên trong 1 request (1 giao dịch), trả kết quả từng dòng
+    // POST /api/interviews/send-bulk  {"items":[{"ungTuyenID":1,"ngayHen":"2025-12-01 09:00",...}]}
+    @PostMapping("/send-bulk")
+    public ResponseEntity<?> createBulk(@RequestBody BulkCreateRequest req) {
+        List<Map<String, Object>> bodies = new ArrayList<>();
+        if (req.getItems() != null) {
+            for (CreateRequest item : req.getItems()) bodies.add(toBody(item));
+        }
+        try {
+            return ResponseEntity.ok(service.createInterviewsBulk(bodies));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Map.of không nhận null nên dùng HashMap (các trường thư mời có thể bỏ trống)
+    private static Map<String, Object> toBody(CreateRequest req) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("ungTuyenID", req.getUngTuyenID());
+        body.put("ngayHen", req.getNgayHen());
+        body.put("thoiLuongPhut", req.getThoiLuongPhut());
+        body.put("diaDiem", req.getDiaDiem());
+        body.put("nguoiPhongVan", req.getNguoiPhongVan());
+        body.put("noiDungThu", req.getNoiDungThu());
+        body.put("emailUngVien", req.getEmailUngVien());
+        return body;
     }
 
     // 2️⃣ Danh sách thư mời theo NTD (gọi SP sẵn có)
@@ -33,6 +68,23 @@ public class InterviewController {
         return service.getByEmployer(ntdId);
     }
 
+    // 2️⃣a Giờ rảnh của người phỏng vấn (bỏ trống interviewer = giờ công ty không có buổi nào)
+    // GET /api/interviews/free-slots?ntdId=1&interviewer=Nguyễn Văn A&from=2025-12-01 08:00&to=2025-12-05 18:00&duration=60
+    @GetMapping("/free-slots")
+    public ResponseEntity<?> freeSlots(@RequestParam int ntdId,
+                                       @RequestParam(required = false) String interviewer,
+                                       @RequestParam String from,
+                                       @RequestParam String to,
+                                       @RequestParam(defaultValue = "60") int duration) {
+        try {
+            return ResponseEntity.ok(service.getFreeSlots(ntdId, interviewer, from, to, duration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // 3️⃣ Ứng viên xác nhận / từ chối (gọi SP sp_Interview_Confirm)
     @PutMapping("/{lichHenID}")
     public Map<String, Object> confirm(@PathVariable int lichHenID, @RequestBody ConfirmRequest req) {
@@ -44,6 +96,7 @@ public class InterviewController {
     public static class CreateRequest {
         private int ungTuyenID;
         private String ngayHen;
+        private Integer thoiLuongPhut;
         private String diaDiem;
         private String nguoiPhongVan;
         private String noiDungThu;
@@ -54,4 +107,9 @@ public class InterviewController {
     public static class ConfirmRequest {
         private String trangThai;
     }
+
+    @Data
+    public static class BulkCreateRequest {
+        private List<CreateRequest> items;
+    }
 }
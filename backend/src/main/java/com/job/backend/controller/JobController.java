@@ -1,7 +1,9 @@
 package com.job.backend.controller;
 
+import com.job.backend.dto.JobQuery;
 import com.job.backend.service.JobService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,15 +17,48 @@ public class JobController {
     private final JobService jobService;
 
     // GET /api/jobs?keyword=java&diaDiem=HCM&page=1&size=10
+    // GET /api/jobs?keyword=java&cursor=&size=10  (chế độ cursor, trang sau gửi lại nextCursor)
+    // GET /api/jobs?minSalary=10000000&maxSalary=20000000&sort=salary  (lương tính bằng VND)
     @GetMapping
-    public Map<String, Object> listJobs(
+    public ResponseEntity<?> listJobs(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String diaDiem,
+            @RequestParam(required = false) String maDiaDiem,
             @RequestParam(required = false) String loaiHinh,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Long minSalary,
+            @RequestParam(required = false) Long maxSalary,
+            @RequestParam(required = false) String sort
     ) {
-        return jobService.getAllJobs(keyword, diaDiem, loaiHinh, page, size);
+        JobQuery query = new JobQuery(keyword, diaDiem, maDiaDiem, loaiHinh, minSalary, maxSalary, sort);
+        if (cursor == null) {
+            return ResponseEntity.ok(jobService.getAllJobs(query, page, size));
+        }
+        try {
+            return ResponseEntity.ok(jobService.getJobsByCursor(query, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET /api/jobs/suggest?q=lap tr&limit=8  (gợi ý khi gõ: tiêu đề tin + tên công ty)
+    @GetMapping("/suggest")
+    public List<Map<String, Object>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit
+    ) {
+        return jobService.suggest(q, limit);
+    }
+
+    // GET /api/jobs/locations/suggest?prefix=ha&limit=10  (gửi MaDiaDiem trả về vào ?maDiaDiem=)
+    @GetMapping("/locations/suggest")
+    public List<Map<String, Object>> suggestLocations(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return jobService.suggestLocations(prefix, limit);
     }
 
     // GET /api/jobs/{id}
@@ -0,0 +1,39 @@
+package com.job.backend.controller;
+
+import com.job.backend.service.MetricsSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final List<MetricsSource> sources;
+
+    // GET /api/metrics → số liệu của tất cả thành phần
+    @GetMapping
+    public Map<String, Object> all() {
+        Map<String, Object> result = new TreeMap<>();
+        for (MetricsSource source : sources) {
+            result.put(source.metricsName(), source.metrics());
+        }
+        return result;
+    }
+
+    // GET /api/metrics/{name} → số liệu của 1 thành phần (vd: job-detail-cache)
+    @GetMapping("/{name}")
+    public ResponseEntity<?> one(@PathVariable String name) {
+        for (MetricsSource source : sources) {
+            if (source.metricsName().equals(name)) {
+                return ResponseEntity.ok(source.metrics());
+            }
+        }
+        return ResponseEntity.status(404).body(Map.of("error", "Không có nhóm số liệu: " + name));
+    }
+}
@@ -1,8 +1,15 @@
 package com.job.backend.controller;
 
+import com.job.backend.service.JwtAuthFilter;
 import com.job.backend.service.NotificationService;
+import com.job.backend.service.NotificationStreamService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -13,6 +20,7 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService service;
+    private final NotificationStreamService streamService;
 
     /**
      * Lấy danh sách thông báo theo UserID.
@@ -27,6 +35,82 @@ public class NotificationController {
         return service.getNotificationsByUser(userId, onlyUnread);
     }
 
+    /**
+     * Lịch sử thông báo phân trang keyset (mới nhất trước), không trả toàn bộ lịch sử như /user/{userId}.
+     * Ví dụ: /api/notifications/user/3/page?size=20&cursor=...&onlyUnread=false
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<?> getPage(
+            @PathVariable int userId,
+            @RequestParam(defaultValue = "false") boolean onlyUnread,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        try {
+            return ResponseEntity.ok(service.getPage(userId, onlyUnread, cursor, Math.min(Math.max(size, 1), 100)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Đánh dấu đã đọc mọi thông báo từ upTo (readCursor của trang) trở về trước; bỏ trống = tất cả.
+     * Ví dụ: PUT /api/notifications/user/3/read-all?upTo=...
+     */
+    @PutMapping("/user/{userId}/read-all")
+    public ResponseEntity<?> markAllRead(@PathVariable int userId, @RequestParam(required = false) String upTo) {
+        try {
+            return ResponseEntity.ok(Map.of("userId", userId, "updated", service.markAllRead(userId, upTo)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Số thông báo chưa đọc (badge trên header), không truy vấn bảng Notification khi đã có trong bộ đếm.
+     * Ví dụ: /api/notifications/user/3/unread-count
+     */
+    @GetMapping("/user/{userId}/unread-count")
+    public Map<String, Object> unreadCount(@PathVariable int userId) {
+        return Map.of("userId", userId, "unread", service.getUnreadCount(userId));
+    }
+
+    /**
+     * Kênh realtime (text/event-stream): mỗi thông báo mới là 1 sự kiện "notification"
+     * với id = NotiID, data = dòng Notification.
+     * Kết nối lại gửi header Last-Event-ID (hoặc ?lastEventId= nếu client không đặt được header)
+     * để nhận lại các thông báo bị lỡ.
+     * EventSource của trình duyệt không gửi được header Authorization nên token truyền qua ?access_token=
+     * (JwtAuthFilter chỉ nhận tham số này ở đường dẫn /stream). Chỉ mở được kênh của chính user trong token
+     * (ADMIN mở được mọi user).
+     * Ví dụ: new EventSource("/api/notifications/stream/3?access_token=" + token)
+     */
+    @GetMapping(value = "/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @PathVariable int userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId,
+            @RequestAttribute(name = JwtAuthFilter.USER_ID_ATTRIBUTE, required = false) Integer tokenUserId,
+            Authentication authentication
+    ) {
+        boolean admin = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        if (!admin && (tokenUserId == null || tokenUserId != userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        String resumeFrom = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        Integer lastId = null;
+        if (resumeFrom != null && !resumeFrom.isBlank()) {
+            try {
+                lastId = Integer.valueOf(resumeFrom.trim());
+            } catch (NumberFormatException ignored) {
+                // id lạ thì coi như kết nối mới
+            }
+        }
+        return ResponseEntity.ok(streamService.subscribe(userId, lastId));
+    }
+
     /**
      * Đánh dấu thông báo đã đọc.
      */
@@ -0,0 +1,28 @@
+package com.job.backend.controller;
+
+import com.job.backend.service.RecommendationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/recommendations")
+@RequiredArgsConstructor
+public class RecommendationController {
+
+    private final RecommendationService service;
+
+    /**
+     * Tin tuyển dụng phù hợp với hồ sơ ứng viên (KyNang/KinhNghiem/HocVan), điểm cao trước.
+     * Ví dụ: /api/recommendations/user/3?limit=10
+     */
+    @GetMapping("/user/{userId}")
+    public List<Map<String, Object>> getByUser(
+            @PathVariable int userId,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return service.getForUser(userId, Math.min(Math.max(limit, 1), 50));
+    }
+}
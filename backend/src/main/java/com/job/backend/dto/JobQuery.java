@@ -0,0 +1,36 @@
+package com.job.backend.dto;
+
+/**
+ * Bộ lọc danh sách tin công khai (GET /api/jobs).
+ * maDiaDiem = mã tỉnh/thành (ưu tiên hơn diaDiem nhập tự do);
+ * minSalary/maxSalary tính bằng VND; sort = "salary" (lương cao trước) hoặc mặc định (tin mới trước).
+ */
+public record JobQuery(String keyword, String diaDiem, String maDiaDiem, String loaiHinh,
+                       Long minSalary, Long maxSalary, String sort) {
+
+    public static final String SORT_SALARY = "salary";
+
+    public boolean hasKeyword() {
+        return keyword != null && !keyword.isBlank();
+    }
+
+    public boolean hasDiaDiem() {
+        return diaDiem != null && !diaDiem.isBlank();
+    }
+
+    public boolean hasMaDiaDiem() {
+        return maDiaDiem != null && !maDiaDiem.isBlank();
+    }
+
+    public JobQuery withMaDiaDiem(String code) {
+        return new JobQuery(keyword, diaDiem, code, loaiHinh, minSalary, maxSalary, sort);
+    }
+
+    public boolean hasLoaiHinh() {
+        return loaiHinh != null && !loaiHinh.isBlank();
+    }
+
+    public boolean sortBySalary() {
+        return SORT_SALARY.equalsIgnoreCase(sort);
+    }
+}
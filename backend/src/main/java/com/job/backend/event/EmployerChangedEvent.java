@@ -0,0 +1,8 @@
+package com.job.backend.event;
+
+/**
+ * Phát ra sau khi thông tin công ty (NhaTuyenDung) thay đổi: tên, mô tả, website, logo...
+ * Các cache chứa dữ liệu join với công ty dựa vào đây để làm mới.
+ */
+public record EmployerChangedEvent(int ntdId) {
+}
@@ -0,0 +1,25 @@
+package com.job.backend.event;
+
+import com.job.backend.repository.JobRepository;
+
+import java.util.Map;
+
+/**
+ * Phát ra sau khi một tin tuyển dụng được ghi xuống DB.
+ * {@code row} là bản chụp mới nhất của tin (với DELETED là bản chụp trước khi xóa),
+ * các index/cache trong bộ nhớ dựa vào đây để cập nhật mà không cần đọc lại DB.
+ */
+public record JobChangedEvent(Kind kind, int tinId, Map<String, Object> row) {
+
+    public enum Kind { CREATED, UPDATED, DELETED, EXPIRED }
+
+    /**
+     * Tin còn hiển thị công khai sau thay đổi này hay không.
+     */
+    public boolean isActive() {
+        return kind != Kind.DELETED
+                && kind != Kind.EXPIRED
+                && row != null
+                && JobRepository.STATUS_ACTIVE.equals(row.get("TrangThai"));
+    }
+}
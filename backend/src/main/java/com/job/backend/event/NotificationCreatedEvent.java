@@ -0,0 +1,16 @@
+package com.job.backend.event;
+
+import java.util.Map;
+
+/**
+ * Phát ra sau khi một thông báo (Notification) đã được ghi và commit.
+ * {@code row} gồm NotiID, UserID, TieuDe, NoiDung, IsRead, CreatedAt; kênh đẩy realtime
+ * gửi nguyên dòng này cho các kết nối đang mở của user.
+ */
+public record NotificationCreatedEvent(int userId, int notiId, Map<String, Object> row) {
+
+    public static NotificationCreatedEvent of(Map<String, Object> row) {
+        return new NotificationCreatedEvent(((Number) row.get("UserID")).intValue(),
+                ((Number) row.get("NotiID")).intValue(), row);
+    }
+}
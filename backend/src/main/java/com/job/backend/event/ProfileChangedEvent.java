@@ -0,0 +1,8 @@
+package com.job.backend.event;
+
+/**
+ * Phát ra sau khi hồ sơ ứng viên (UngVien) được tạo/sửa/xóa.
+ * Các thành phần tính toán trên nội dung hồ sơ (gợi ý việc làm...) dựa vào đây để cập nhật.
+ */
+public record ProfileChangedEvent(int ungVienId) {
+}
@@ -1,8 +1,21 @@
 package com.job.backend.repository;
 
+import com.job.backend.util.KeysetCursor;
+import com.microsoft.sqlserver.jdbc.SQLServerDataTable;
+import com.microsoft.sqlserver.jdbc.SQLServerPreparedStatement;
+import com.microsoft.sqlserver.jdbc.SQLServerStatement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +33,43 @@ public class ApplicationRepository {
                 "EXEC sp_Application_Create ?, ?, ?", ungVienID, tinID, ghiChu);
     }
 
+    /**
+     * Ghi 1 lô hồ sơ nộp qua hàng đợi trong 1 câu lệnh.
+     * items: các dòng {STT, UngVienID, TinID, GhiChu}; dòng có ứng viên không tồn tại hoặc tin
+     * không còn hiển thị bị bỏ qua. MERGE ... ON 1 = 0 thay cho INSERT để OUTPUT trả được cả STT
+     * của dòng nguồn, ghép lại với UngTuyenID vừa sinh; cùng câu lệnh ghi luôn NhatKyTrangThai.
+     * Tối đa 500 dòng (4 tham số mỗi dòng).
+     */
+    public List<Map<String, Object>> insertBatch(List<Map<String, Object>> items) {
+        if (items.isEmpty()) return new ArrayList<>();
+        String values = String.join(",", Collections.nCopies(items.size(), "(?, ?, ?, CAST(? AS NVARCHAR(MAX)))"));
+        String sql = """
+            MERGE dbo.UngTuyen AS target
+            USING (
+                SELECT v.STT, v.UngVienID, v.TinID, v.GhiChu, t.NTDID
+                FROM (VALUES %s) v(STT, UngVienID, TinID, GhiChu)
+                JOIN dbo.UngVien uv ON uv.UngVienID = v.UngVienID
+                JOIN dbo.TinTuyenDung t ON t.TinID = v.TinID AND t.TrangThai = N'Đang hiển thị'
+            ) AS src
+            ON 1 = 0
+            WHEN NOT MATCHED THEN
+                INSERT (UngVienID, TinID, GhiChu) VALUES (src.UngVienID, src.TinID, src.GhiChu)
+            OUTPUT 'UngTuyen', INSERTED.UngTuyenID, INSERTED.UngTuyenID, INSERTED.TinID, INSERTED.UngVienID,
+                   src.NTDID, NULL, INSERTED.TrangThai
+                INTO dbo.NhatKyTrangThai(LoaiDoiTuong, DoiTuongID, UngTuyenID, TinID, UngVienID, NTDID, TrangThaiCu, TrangThaiMoi)
+            OUTPUT src.STT, INSERTED.UngTuyenID, INSERTED.NgayUngTuyen, INSERTED.TrangThai;
+        """.formatted(values);
+
+        List<Object> params = new ArrayList<>(items.size() * 4);
+        for (Map<String, Object> item : items) {
+            params.add(item.get("STT"));
+            params.add(item.get("UngVienID"));
+            params.add(item.get("TinID"));
+            params.add(item.get("GhiChu"));
+        }
+        return jdbcTemplate.queryForList(sql, params.toArray());
+    }
+
     /**
      * Danh sách ứng viên ứng tuyển theo tin
      * Gọi SP: sp_Application_ListByJob
@@ -29,6 +79,113 @@ public class ApplicationRepository {
                 "EXEC sp_Application_ListByJob ?", tinID);
     }
 
+    /**
+     * Duyệt danh sách ứng viên của 1 tin theo con trỏ forward-only, từng dòng một,
+     * không gom kết quả vào List (dùng cho xuất file). adaptive buffering để driver
+     * chỉ giữ trong bộ nhớ các dòng đang đọc.
+     */
+    public void streamByJob(int tinID, int fetchSize, RowCallbackHandler handler) {
+        String sql = """
+            SELECT ut.UngTuyenID, ut.NgayUngTuyen, ut.TrangThai,
+                   u.FullName, u.Email, u.Phone,
+                   uv.NgaySinh, uv.GioiTinh, uv.DiaChi, uv.HocVan, uv.KyNang, uv.KinhNghiem,
+                   uv.CVLink, ut.GhiChu
+            FROM dbo.UngTuyen ut
+            JOIN dbo.UngVien uv ON uv.UngVienID = ut.UngVienID
+            JOIN dbo.[User] u ON u.UserID = uv.UserID
+            WHERE ut.TinID = ?
+            ORDER BY ut.NgayUngTuyen DESC
+        """;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.unwrap(SQLServerStatement.class).setResponseBuffering("adaptive");
+            ps.setFetchSize(fetchSize);
+            ps.setInt(1, tinID);
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Danh sách ứng viên rút gọn của 1 tin (chỉ cột hiển thị trên bảng, không kèm các cột nvarchar(max)),
+     * phân trang keyset theo (NgayUngTuyen, UngTuyenID) giảm dần -> seek IX_UngTuyen_TinID_NgayUngTuyen.
+     */
+    public List<Map<String, Object>> listSummaryByJob(int tinID, KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT TOP (?) ut.UngTuyenID, ut.UngVienID, ut.NgayUngTuyen, ut.TrangThai, u.FullName
+            FROM dbo.UngTuyen ut
+            JOIN dbo.UngVien uv ON uv.UngVienID = ut.UngVienID
+            JOIN dbo.[User] u ON u.UserID = uv.UserID
+            WHERE ut.TinID = ?
+        """);
+        List<Object> params = new ArrayList<>(List.of(limit, tinID));
+        if (after != null) {
+            // CAST về DATETIME để so sánh đúng độ chính xác với cột NgayUngTuyen
+            sql.append(" AND (ut.NgayUngTuyen < CAST(? AS DATETIME)"
+                    + " OR (ut.NgayUngTuyen = CAST(? AS DATETIME) AND ut.UngTuyenID < ?))");
+            params.add(after.time());
+            params.add(after.time());
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY ut.NgayUngTuyen DESC, ut.UngTuyenID DESC");
+        return jdbcTemplate.queryForList(sql.toString(), params.toArray());
+    }
+
+    /**
+     * Khóa phiên bản của mọi hồ sơ đã ứng tuyển vào tin (không kèm nội dung, rất nhẹ).
+     * PhienBan là rowversion của UngVien, đổi mỗi khi hồ sơ được sửa.
+     */
+    public List<Map<String, Object>> listMatchKeys(int tinID) {
+        return jdbcTemplate.queryForList("""
+            SELECT ut.UngTuyenID, ut.NgayUngTuyen, CAST(uv.PhienBan AS BIGINT) AS PhienBan
+            FROM dbo.UngTuyen ut
+            JOIN dbo.UngVien uv ON uv.UngVienID = ut.UngVienID
+            WHERE ut.TinID = ?
+        """, tinID);
+    }
+
+    /**
+     * Nội dung hồ sơ dùng để chấm điểm, theo danh sách UngTuyenID
+     */
+    public List<Map<String, Object>> findMatchTexts(List<Integer> ungTuyenIds) {
+        if (ungTuyenIds.isEmpty()) return new ArrayList<>();
+        String placeholders = String.join(",", Collections.nCopies(ungTuyenIds.size(), "?"));
+        return jdbcTemplate.queryForList("""
+            SELECT ut.UngTuyenID, uv.KyNang, uv.KinhNghiem, uv.HocVan
+            FROM dbo.UngTuyen ut
+            JOIN dbo.UngVien uv ON uv.UngVienID = ut.UngVienID
+            WHERE ut.UngTuyenID IN (%s)
+        """.formatted(placeholders), ungTuyenIds.toArray());
+    }
+
+    /**
+     * Dòng đầy đủ (cùng cột với sp_Application_ListByJob) theo danh sách UngTuyenID,
+     * giữ nguyên thứ tự của danh sách.
+     */
+    public List<Map<String, Object>> findByIds(List<Integer> ungTuyenIds) {
+        if (ungTuyenIds.isEmpty()) return new ArrayList<>();
+        String placeholders = String.join(",", Collections.nCopies(ungTuyenIds.size(), "?"));
+        String sql = """
+            SELECT ut.UngTuyenID, ut.UngVienID, ut.TinID, ut.NgayUngTuyen, ut.TrangThai, ut.GhiChu,
+                   uv.UserID, u.FullName, u.Email, u.Phone,
+                   uv.NgaySinh, uv.DiaChi, uv.GioiTinh, uv.HocVan, uv.KyNang, uv.KinhNghiem, uv.CVLink
+            FROM dbo.UngTuyen ut
+            JOIN dbo.UngVien uv ON uv.UngVienID = ut.UngVienID
+            JOIN dbo.[User] u ON u.UserID = uv.UserID
+            WHERE ut.UngTuyenID IN (%s)
+        """.formatted(placeholders);
+
+        Map<Integer, Map<String, Object>> byId = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql, ungTuyenIds.toArray())) {
+            byId.put(((Number) row.get("UngTuyenID")).intValue(), row);
+        }
+        List<Map<String, Object>> ordered = new ArrayList<>(byId.size());
+        for (Integer id : ungTuyenIds) {
+            Map<String, Object> row = byId.get(id);
+            if (row != null) ordered.add(row);
+        }
+        return ordered;
+    }
+
     /**
      * Lịch sử ứng tuyển của ứng viên (theo UserID)
      * Gọi SP: sp_Application_ListByUser
@@ -46,4 +203,25 @@ public class ApplicationRepository {
         return jdbcTemplate.queryForMap(
                 "EXEC sp_Application_UpdateStatus ?, ?, ?", ungTuyenID, trangThai, ghiChu);
     }
+
+    /**
+     * Cập nhật trạng thái nhiều hồ sơ trong 1 lần gọi (1 giao dịch).
+     * items: các dòng {STT, UngTuyenID, TrangThai, GhiChu}, gửi dưới dạng table-valued parameter.
+     * Gọi SP: sp_Application_BulkUpdateStatus, trả về kết quả từng dòng theo STT.
+     */
+    public List<Map<String, Object>> bulkUpdateStatus(List<Map<String, Object>> items) {
+        return jdbcTemplate.query(con -> {
+            SQLServerDataTable table = new SQLServerDataTable();
+            table.addColumnMetadata("STT", Types.INTEGER);
+            table.addColumnMetadata("UngTuyenID", Types.INTEGER);
+            table.addColumnMetadata("TrangThai", Types.NVARCHAR);
+            table.addColumnMetadata("GhiChu", Types.NVARCHAR);
+            for (Map<String, Object> item : items) {
+                table.addRow(item.get("STT"), item.get("UngTuyenID"), item.get("TrangThai"), item.get("GhiChu"));
+            }
+            PreparedStatement ps = con.prepareStatement("EXEC sp_Application_BulkUpdateStatus ?");
+            ps.unwrap(SQLServerPreparedStatement.class).setStructured(1, "dbo.UngTuyenTrangThaiList", table);
+            return ps;
+        }, new ColumnMapRowMapper());
+    }
 }
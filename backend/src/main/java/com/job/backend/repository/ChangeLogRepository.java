@@ -0,0 +1,51 @@
+package com.job.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đọc nhật ký chuyển trạng thái (NhatKyTrangThai). Bảng chỉ được ghi thêm, từ các SP
+ * sp_Application_Create / sp_Application_UpdateStatus / sp_Application_BulkUpdateStatus /
+ * sp_Interview_Confirm và khi tạo lịch hẹn / nhận hồ sơ qua hàng đợi.
+ * SoThuTu là IDENTITY: giao dịch lấy số nhỏ hơn có thể commit sau khi client đã đọc qua số lớn hơn.
+ * Vì vậy chỉ trả các dòng ghi trước {@code lagSeconds} giây (cửa sổ trễ commit, như StatisticsAggregator),
+ * giao dịch ghi nhật ký ngắn hơn cửa sổ này thì không dòng nào bị bỏ qua.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChangeLogRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String COLUMNS = """
+            SELECT TOP (?) nk.SoThuTu, nk.LoaiDoiTuong, nk.DoiTuongID, nk.UngTuyenID, nk.TinID,
+                   nk.TrangThaiCu, nk.TrangThaiMoi, nk.ThoiDiem
+            FROM dbo.NhatKyTrangThai nk
+            """;
+
+    /**
+     * Thay đổi liên quan tới ứng viên (theo UserID) có số thứ tự lớn hơn {@code since}, tăng dần,
+     * ghi trước {@code lagSeconds} giây. Seek IX_NhatKy_UngVienID_SoThuTu.
+     */
+    public List<Map<String, Object>> listForCandidate(int userId, long since, int lagSeconds, int limit) {
+        return jdbcTemplate.queryForList(COLUMNS + """
+                WHERE nk.UngVienID = (SELECT UngVienID FROM dbo.UngVien WHERE UserID = ?)
+                  AND nk.SoThuTu > ? AND nk.ThoiDiem < DATEADD(SECOND, -?, GETDATE())
+                ORDER BY nk.SoThuTu
+                """, limit, userId, since, lagSeconds);
+    }
+
+    /**
+     * Thay đổi liên quan tới nhà tuyển dụng có số thứ tự lớn hơn {@code since}, tăng dần,
+     * ghi trước {@code lagSeconds} giây. Seek IX_NhatKy_NTDID_SoThuTu.
+     */
+    public List<Map<String, Object>> listForEmployer(int ntdId, long since, int lagSeconds, int limit) {
+        return jdbcTemplate.queryForList(COLUMNS + """
+                WHERE nk.NTDID = ? AND nk.SoThuTu > ? AND nk.ThoiDiem < DATEADD(SECOND, -?, GETDATE())
+                ORDER BY nk.SoThuTu
+                """, limit, ntdId, since, lagSeconds);
+    }
+}
@@ -1,70 +1,189 @@
 package com.job.backend.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 public class InterviewRepository {
     private final JdbcTemplate jdbcTemplate;
 
+    // 8 tham số mỗi lịch hẹn, SQL Server giới hạn 2100 tham số mỗi câu lệnh
+    private static final int INSERT_CHUNK = 250;
+    private static final int IN_CHUNK = 1000;
+    // 2 tham số mỗi thông báo
+    private static final int NOTIFICATION_CHUNK = 500;
+
     /**
-     * Tạo thư mời phỏng vấn (INSERT trực tiếp)
+     * Kết quả tạo thư mời: lịch hẹn theo thứ tự gửi lên (null = không có hồ sơ)
+     * và các dòng Notification vừa ghi (NotiID, UserID, TieuDe, NoiDung, IsRead, CreatedAt).
      */
-    public Map<String, Object> createInterview(
-            int ungTuyenID,
-            String ngayHen,
-            String diaDiem,
-            String nguoiPhongVan,
-            String noiDungThu,
-            String emailUngVien
-    ) {
-        // 1️⃣ Thêm vào bảng LichHenPhongVan
-        String insertSql = """
-            INSERT INTO LichHenPhongVan
-                (UngTuyenID, NgayHen, DiaDiem, NguoiPhongVan, NoiDungThu, TrangThai, NgayGuiThu, EmailUngVien)
-            VALUES (?, TRY_CAST(? AS DATETIME), ?, ?, ?, N'Đang chờ phản hồi', GETDATE(), ?)
-        """;
-
-        jdbcTemplate.update(insertSql, ungTuyenID, ngayHen, diaDiem, nguoiPhongVan, noiDungThu, emailUngVien);
-
-        // 2️⃣ Lấy ID vừa thêm
-        Integer lichHenID = jdbcTemplate.queryForObject("SELECT MAX(LichHenID) FROM LichHenPhongVan", Integer.class);
-
-        // 3️⃣ (Tùy chọn) Ghi thông báo Notification cho ứng viên
-        String insertNoti = """
-            INSERT INTO Notification (UserID, TieuDe, NoiDung, IsRead, CreatedAt)
-            SELECT u.UserID,
-                   N'Thư mời phỏng vấn từ nhà tuyển dụng',
-                   N'Bạn đã nhận được thư mời phỏng vấn cho hồ sơ #' + CAST(ut.UngTuyenID AS NVARCHAR(10)) 
-                   + N'. Thời gian: ' + ? + N'. Địa điểm: ' + ? + N'. Người phỏng vấn: ' + ?,
-                   0,
-                   GETDATE()
-            FROM UngVien u
-            JOIN UngTuyen ut ON u.UngVienID = ut.UngVienID
-            WHERE ut.UngTuyenID = ?
-        """;
-        jdbcTemplate.update(insertNoti, ngayHen, diaDiem, nguoiPhongVan, ungTuyenID);
-
-        // 4️⃣ Trả kết quả
-        Map<String, Object> result = new HashMap<>();
-        result.put("LichHenID", lichHenID);
-        result.put("UngTuyenID", ungTuyenID);
-        result.put("NgayHen", ngayHen);
-        result.put("DiaDiem", diaDiem);
-        result.put("NguoiPhongVan", nguoiPhongVan);
-        result.put("EmailUngVien", emailUngVien);
-        result.put("TrangThai", "Đang chờ phản hồi");
+    public record Created(List<Map<String, Object>> interviews, List<Map<String, Object>> notifications) {
+    }
+
+    /**
+     * Tạo nhiều thư mời phỏng vấn trong 1 giao dịch.
+     * invites: các dòng {UngTuyenID, NgayHen, ThoiLuongPhut, DiaDiem, NguoiPhongVan, NoiDungThu, EmailUngVien}.
+     * - LichHenPhongVan: 1 câu MERGE ... ON 1 = 0 mỗi lô, OUTPUT trả LichHenID kèm vị trí dòng nguồn
+     *   (thay cho SELECT MAX(LichHenID) vốn quét bảng và sai khi có request song song),
+     *   đồng thời ghi NhatKyTrangThai; hồ sơ ứng tuyển không tồn tại bị bỏ qua.
+     * - Notification: ghi theo lô (INSERT nhiều dòng, OUTPUT trả NotiID để đẩy realtime sau commit).
+     * Lịch hẹn trả về cùng thứ tự với invites; phần tử null = không tạo được (không có hồ sơ).
+     */
+    @Transactional
+    public Created createInterviews(List<Map<String, Object>> invites) {
+        List<Map<String, Object>> result = new ArrayList<>(Collections.nCopies(invites.size(), null));
+        List<Object[]> notifications = new ArrayList<>();
+
+        for (int from = 0; from < invites.size(); from += INSERT_CHUNK) {
+            List<Map<String, Object>> chunk = invites.subList(from, Math.min(from + INSERT_CHUNK, invites.size()));
+            for (Map<String, Object> row : insertChunk(chunk, from)) {
+                int stt = ((Number) row.get("STT")).intValue();
+                Map<String, Object> invite = invites.get(stt);
+
+                Map<String, Object> saved = new HashMap<>();
+                saved.put("LichHenID", row.get("LichHenID"));
+                saved.put("UngTuyenID", row.get("UngTuyenID"));
+                saved.put("NgayHen", invite.get("NgayHen"));
+                saved.put("ThoiLuongPhut", invite.get("ThoiLuongPhut"));
+                saved.put("DiaDiem", invite.get("DiaDiem"));
+                saved.put("NguoiPhongVan", invite.get("NguoiPhongVan"));
+                saved.put("EmailUngVien", invite.get("EmailUngVien"));
+                saved.put("TrangThai", row.get("TrangThai"));
+                result.set(stt, saved);
+
+                notifications.add(new Object[]{
+                        row.get("UserID"),
+                        "Bạn đã nhận được thư mời phỏng vấn cho hồ sơ #" + row.get("UngTuyenID")
+                                + ". Thời gian: " + Objects.toString(invite.get("NgayHen"), "")
+                                + ". Địa điểm: " + Objects.toString(invite.get("DiaDiem"), "")
+                                + ". Người phỏng vấn: " + Objects.toString(invite.get("NguoiPhongVan"), "")
+                });
+            }
+        }
+
+        // Ghi thông báo cho ứng viên, cùng giao dịch với lịch hẹn
+        List<Map<String, Object>> created = new ArrayList<>(notifications.size());
+        for (int from = 0; from < notifications.size(); from += NOTIFICATION_CHUNK) {
+            List<Object[]> chunk = notifications.subList(from, Math.min(from + NOTIFICATION_CHUNK, notifications.size()));
+            String sql = """
+                INSERT INTO Notification (UserID, TieuDe, NoiDung, IsRead, CreatedAt)
+                OUTPUT INSERTED.NotiID, INSERTED.UserID, INSERTED.TieuDe, INSERTED.NoiDung, INSERTED.IsRead, INSERTED.CreatedAt
+                VALUES %s
+            """.formatted(String.join(",", Collections.nCopies(chunk.size(),
+                    "(?, N'Thư mời phỏng vấn từ nhà tuyển dụng', ?, 0, GETDATE())")));
+            List<Object> params = new ArrayList<>(chunk.size() * 2);
+            for (Object[] row : chunk) Collections.addAll(params, row);
+            created.addAll(jdbcTemplate.queryForList(sql, params.toArray()));
+        }
+        return new Created(result, created);
+    }
+
+    // 1 câu MERGE cho tối đa INSERT_CHUNK lịch hẹn; STT = vị trí trong danh sách gốc
+    private List<Map<String, Object>> insertChunk(List<Map<String, Object>> chunk, int offset) {
+        String values = String.join(",", Collections.nCopies(chunk.size(),
+                "(?, ?, ?, ?, ?, ?, CAST(? AS NVARCHAR(MAX)), ?)"));
+        String sql = """
+            MERGE LichHenPhongVan AS target
+            USING (
+                SELECT v.STT, v.UngTuyenID, TRY_CAST(v.NgayHen AS DATETIME) AS NgayHen, v.ThoiLuongPhut, v.DiaDiem,
+                       v.NguoiPhongVan, v.NoiDungThu, v.EmailUngVien,
+                       ut.TinID, ut.UngVienID, uv.UserID, t.NTDID
+                FROM (VALUES %s) v(STT, UngTuyenID, NgayHen, ThoiLuongPhut, DiaDiem, NguoiPhongVan, NoiDungThu, EmailUngVien)
+                JOIN UngTuyen ut ON ut.UngTuyenID = v.UngTuyenID
+                JOIN UngVien uv ON uv.UngVienID = ut.UngVienID
+                JOIN TinTuyenDung t ON t.TinID = ut.TinID
+            ) AS src
+            ON 1 = 0
+            WHEN NOT MATCHED THEN
+                INSERT (UngTuyenID, NgayHen, ThoiLuongPhut, DiaDiem, NguoiPhongVan, NoiDungThu, TrangThai, NgayGuiThu, EmailUngVien)
+                VALUES (src.UngTuyenID, src.NgayHen, src.ThoiLuongPhut, src.DiaDiem, src.NguoiPhongVan, src.NoiDungThu,
+                        N'Đang chờ phản hồi', GETDATE(), src.EmailUngVien)
+            OUTPUT 'LichHen', INSERTED.LichHenID, INSERTED.UngTuyenID, src.TinID, src.UngVienID, src.NTDID,
+                   NULL, INSERTED.TrangThai
+                INTO NhatKyTrangThai (LoaiDoiTuong, DoiTuongID, UngTuyenID, TinID, UngVienID, NTDID, TrangThaiCu, TrangThaiMoi)
+            OUTPUT src.STT, INSERTED.LichHenID, INSERTED.UngTuyenID, INSERTED.TrangThai, src.UserID;
+        """.formatted(values);
+
+        List<Object> params = new ArrayList<>(chunk.size() * 8);
+        for (int i = 0; i < chunk.size(); i++) {
+            Map<String, Object> invite = chunk.get(i);
+            params.add(offset + i);
+            params.add(invite.get("UngTuyenID"));
+            params.add(invite.get("NgayHen"));
+            params.add(invite.get("ThoiLuongPhut"));
+            params.add(invite.get("DiaDiem"));
+            params.add(invite.get("NguoiPhongVan"));
+            params.add(invite.get("NoiDungThu"));
+            params.add(invite.get("EmailUngVien"));
+        }
+        return jdbcTemplate.queryForList(sql, params.toArray());
+    }
+
+    /**
+     * NTDID của từng hồ sơ ứng tuyển (UngTuyenID -> NTDID), bỏ qua hồ sơ không tồn tại.
+     */
+    public Map<Integer, Integer> findEmployerIds(List<Integer> ungTuyenIds) {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (int from = 0; from < ungTuyenIds.size(); from += IN_CHUNK) {
+            List<Integer> chunk = ungTuyenIds.subList(from, Math.min(from + IN_CHUNK, ungTuyenIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("""
+                SELECT ut.UngTuyenID, t.NTDID
+                FROM UngTuyen ut
+                JOIN TinTuyenDung t ON t.TinID = ut.TinID
+                WHERE ut.UngTuyenID IN (%s)
+            """.formatted(placeholders), (RowCallbackHandler) rs ->
+                    result.put(rs.getInt("UngTuyenID"), rs.getInt("NTDID")), chunk.toArray());
+        }
         return result;
     }
 
+    /**
+     * Duyệt các lịch hẹn từ {@code since} trở đi (seek IX_LHPV_NgayHen), dùng dựng lịch trong bộ nhớ.
+     */
+    public void streamScheduledSince(LocalDateTime since, Consumer<Map<String, Object>> consumer) {
+        ColumnMapRowMapper mapper = new ColumnMapRowMapper();
+        jdbcTemplate.query("""
+            SELECT i.LichHenID, i.NgayHen, i.ThoiLuongPhut, i.NguoiPhongVan, i.TrangThai, t.NTDID
+            FROM LichHenPhongVan i
+            JOIN UngTuyen ut ON ut.UngTuyenID = i.UngTuyenID
+            JOIN TinTuyenDung t ON t.TinID = ut.TinID
+            WHERE i.NgayHen >= ?
+        """, (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())), Timestamp.valueOf(since));
+    }
+
+    /**
+     * Lịch hẹn của nhà tuyển dụng có NgayHen trong [from, to), dùng kiểm tra trùng khi lịch trong bộ nhớ chưa nạp.
+     */
+    public List<Map<String, Object>> listScheduledForEmployer(int ntdId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.queryForList("""
+            SELECT i.LichHenID, i.NgayHen, i.ThoiLuongPhut, i.NguoiPhongVan, i.TrangThai
+            FROM LichHenPhongVan i
+            JOIN UngTuyen ut ON ut.UngTuyenID = i.UngTuyenID
+            JOIN TinTuyenDung t ON t.TinID = ut.TinID
+            WHERE t.NTDID = ? AND i.NgayHen >= ? AND i.NgayHen < ?
+        """, ntdId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
     /**
      * Danh sách thư mời theo nhà tuyển dụng (gọi SP sẵn có)
      */
-    public java.util.List<Map<String, Object>> listByEmployer(int ntdId) {
+    public List<Map<String, Object>> listByEmployer(int ntdId) {
         return jdbcTemplate.queryForList("EXEC sp_Interview_ListByEmployer ?", ntdId);
     }
 
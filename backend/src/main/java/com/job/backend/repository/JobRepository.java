@@ -1,77 +1,169 @@
 package com.job.backend.repository;
 
+import com.job.backend.dto.JobQuery;
+import com.job.backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 public class JobRepository {
 
+    public static final String STATUS_ACTIVE = "Đang hiển thị";
+    public static final String STATUS_EXPIRED = "Đã hết hạn";
+
+    /**
+     * Bản chụp đầy đủ của tin dùng để dựng các index trong bộ nhớ
+     */
+    private static final String SNAPSHOT_SQL = """
+            SELECT t.TinID, t.NTDID, t.TieuDe, t.MoTa, t.YeuCau, t.MucLuong,
+                   t.LuongMin, t.LuongMax, t.LuongThoaThuan,
+                   t.DiaDiemLamViec, t.MaDiaDiem, t.LoaiHinhCongViec, t.HanNop, t.TrangThai, t.CreatedAt,
+                   n.TenCongTy
+            FROM TinTuyenDung t
+            JOIN NhaTuyenDung n ON n.NTDID = t.NTDID
+            """;
+
+    /**
+     * Cột trả về cho danh sách tin công khai
+     */
+    private static final String LIST_SQL = """
+            SELECT t.TinID, t.TieuDe, t.MoTa, t.MucLuong, t.LuongMin, t.LuongMax, t.LuongThoaThuan,
+                   t.DiaDiemLamViec, t.MaDiaDiem, t.LoaiHinhCongViec, t.HanNop, t.CreatedAt,
+                   n.TenCongTy, n.LogoURL
+            FROM TinTuyenDung t
+            JOIN NhaTuyenDung n ON n.NTDID = t.NTDID
+            WHERE t.TrangThai = N'Đang hiển thị'
+            """;
+
     private final JdbcTemplate jdbcTemplate;
 
     /**
      * Lấy danh sách tin tuyển dụng có lọc & phân trang
      */
-    public List<Map<String, Object>> findJobs(String keyword, String diaDiem, String loaiHinh, int page, int size) {
+    public List<Map<String, Object>> findJobs(JobQuery query, int page, int size) {
         int offset = (page - 1) * size;
 
-        String sql = """
-                SELECT t.TinID, t.TieuDe, t.MoTa, t.MucLuong, t.DiaDiemLamViec,
-                       t.LoaiHinhCongViec, t.HanNop, t.CreatedAt,
-                       n.TenCongTy, n.LogoURL
-                FROM TinTuyenDung t
-                JOIN NhaTuyenDung n ON n.NTDID = t.NTDID
-                WHERE t.TrangThai = N'Đang hiển thị'
-                  AND (@kw IS NULL OR t.TieuDe LIKE N'%' + @kw + N'%' OR t.MoTa LIKE N'%' + @kw + N'%')
-                  AND (@dd IS NULL OR t.DiaDiemLamViec LIKE N'%' + @dd + N'%')
-                  AND (@lh IS NULL OR t.LoaiHinhCongViec = @lh)
-                ORDER BY t.CreatedAt DESC
-                OFFSET ? ROWS FETCH NEXT ? ROWS ONLY
-                """;
-
         // SQL Server không cho dùng @param kiểu này trong JdbcTemplate,
         // nên ta xử lý thủ công: build điều kiện bằng Java.
-        StringBuilder dynamicSql = new StringBuilder("""
-                SELECT t.TinID, t.TieuDe, t.MoTa, t.MucLuong, t.DiaDiemLamViec,
-                       t.LoaiHinhCongViec, t.HanNop, t.CreatedAt,
-                       n.TenCongTy, n.LogoURL
-                FROM TinTuyenDung t
-                JOIN NhaTuyenDung n ON n.NTDID = t.NTDID
-                WHERE t.TrangThai = N'Đang hiển thị'
-                """);
+        StringBuilder dynamicSql = new StringBuilder(LIST_SQL);
+        List<Object> params = new ArrayList<>();
+        appendFilters(dynamicSql, params, query);
+
+        dynamicSql.append(query.sortBySalary()
+                ? " ORDER BY t.LuongMax DESC, t.TinID DESC"
+                : " ORDER BY t.CreatedAt DESC");
+        dynamicSql.append(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+        params.add(offset);
+        params.add(size);
+
+        return jdbcTemplate.queryForList(dynamicSql.toString(), params.toArray());
+    }
 
-        if (keyword != null && !keyword.isBlank()) {
-            dynamicSql.append(" AND (t.TieuDe LIKE N'%' + ? + N'%' OR t.MoTa LIKE N'%' + ? + N'%')");
+    /**
+     * Phân trang kiểu keyset (seek) theo (CreatedAt DESC, TinID DESC).
+     * after = null -> trang đầu. Dùng index IX_Tin_TrangThai_CreatedAt nên trang sâu
+     * cũng tốn như trang đầu. Lấy dư 1 dòng để biết còn trang sau hay không.
+     */
+    public List<Map<String, Object>> findJobsAfter(JobQuery query, KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(LIST_SQL.replaceFirst("SELECT", "SELECT TOP (?)"));
+        List<Object> params = new ArrayList<>();
+        params.add(limit);
+        appendFilters(sql, params, query);
+
+        if (after != null) {
+            // CAST về DATETIME để so sánh đúng độ chính xác với cột CreatedAt
+            sql.append(" AND (t.CreatedAt < CAST(? AS DATETIME)"
+                    + " OR (t.CreatedAt = CAST(? AS DATETIME) AND t.TinID < ?))");
+            params.add(after.time());
+            params.add(after.time());
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY t.CreatedAt DESC, t.TinID DESC");
+
+        return jdbcTemplate.queryForList(sql.toString(), params.toArray());
+    }
+
+    // Gom điều kiện lọc + tham số theo đúng thứ tự dấu ?
+    private void appendFilters(StringBuilder sql, List<Object> params, JobQuery query) {
+        if (query.hasKeyword()) {
+            sql.append(" AND (t.TieuDe LIKE N'%' + ? + N'%' OR t.MoTa LIKE N'%' + ? + N'%')");
+            params.add(query.keyword());
+            params.add(query.keyword());
         }
-        if (diaDiem != null && !diaDiem.isBlank()) {
-            dynamicSql.append(" AND t.DiaDiemLamViec LIKE N'%' + ? + N'%'");
+        if (query.hasMaDiaDiem()) {
+            // so khớp bằng trên mã -> seek IX_Tin_TrangThai_MaDiaDiem
+            sql.append(" AND t.MaDiaDiem = ?");
+            params.add(query.maDiaDiem());
+        } else if (query.hasDiaDiem()) {
+            // địa điểm không nhận ra được mã: giữ cách lọc chứa chuỗi cũ
+            sql.append(" AND t.DiaDiemLamViec LIKE N'%' + ? + N'%'");
+            params.add(query.diaDiem());
         }
-        if (loaiHinh != null && !loaiHinh.isBlank()) {
-            dynamicSql.append(" AND t.LoaiHinhCongViec = ?");
+        if (query.hasLoaiHinh()) {
+            sql.append(" AND t.LoaiHinhCongViec = ?");
+            params.add(query.loaiHinh());
         }
-        dynamicSql.append(" ORDER BY t.CreatedAt DESC OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
-
-        // Tạo danh sách tham số động
-        new Object() {};
-        new Object();
-        new Object();
-
-        // Gom tham số theo thứ tự
-        java.util.List<Object> params = new java.util.ArrayList<>();
-        if (keyword != null && !keyword.isBlank()) {
-            params.add(keyword);
-            params.add(keyword);
+        // Khoảng lương giao nhau với [minSalary, maxSalary] -> seek trên IX_Tin_LuongMax / IX_Tin_LuongMin
+        if (query.minSalary() != null) {
+            sql.append(" AND t.LuongMax >= ?");
+            params.add(query.minSalary());
         }
-        if (diaDiem != null && !diaDiem.isBlank()) params.add(diaDiem);
-        if (loaiHinh != null && !loaiHinh.isBlank()) params.add(loaiHinh);
-        params.add(offset);
-        params.add(size);
+        if (query.maxSalary() != null) {
+            sql.append(" AND t.LuongMin <= ?");
+            params.add(query.maxSalary());
+        }
+    }
 
-        return jdbcTemplate.queryForList(dynamicSql.toString(), params.toArray());
+    /**
+     * Lấy các tin (đang hiển thị) theo danh sách ID, giữ nguyên thứ tự của danh sách.
+     * Dùng để lấy dữ liệu cho 1 trang kết quả đã được index trong bộ nhớ xếp hạng.
+     */
+    public List<Map<String, Object>> findJobsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) return new ArrayList<>();
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = LIST_SQL + " AND t.TinID IN (" + placeholders + ")";
+
+        Map<Integer, Map<String, Object>> byId = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql, ids.toArray())) {
+            byId.put(((Number) row.get("TinID")).intValue(), row);
+        }
+
+        List<Map<String, Object>> ordered = new ArrayList<>(byId.size());
+        for (Integer id : ids) {
+            Map<String, Object> row = byId.get(id);
+            if (row != null) ordered.add(row);
+        }
+        return ordered;
+    }
+
+    /**
+     * Duyệt lần lượt tất cả tin đang hiển thị (không gom cả bảng vào List)
+     */
+    public void streamActiveSnapshots(Consumer<Map<String, Object>> consumer) {
+        ColumnMapRowMapper mapper = new ColumnMapRowMapper();
+        jdbcTemplate.query(SNAPSHOT_SQL + " WHERE t.TrangThai = ?",
+                (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())),
+                STATUS_ACTIVE);
+    }
+
+    /**
+     * Bản chụp của 1 tin (null nếu không tồn tại)
+     */
+    public Map<String, Object> findSnapshot(int tinId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SNAPSHOT_SQL + " WHERE t.TinID = ?", tinId);
+        return rows.isEmpty() ? null : rows.get(0);
     }
 
     /**
@@ -79,24 +171,40 @@ public class JobRepository {
      */
     public Map<String, Object> findById(int id) {
         String sql = """
-                SELECT t.TinID, t.TieuDe, t.MoTa, t.YeuCau, t.MucLuong, 
-                       t.DiaDiemLamViec, t.LoaiHinhCongViec, t.HanNop, 
-                       t.TrangThai, t.CreatedAt,
+                SELECT t.TinID, t.NTDID, t.TieuDe, t.MoTa, t.YeuCau, t.MucLuong, 
+                       t.LuongMin, t.LuongMax, t.LuongThoaThuan,
+                       t.DiaDiemLamViec, t.MaDiaDiem, t.LoaiHinhCongViec, t.HanNop, 
+                       t.TrangThai, t.CreatedAt, ISNULL(lx.SoLuotXem, 0) AS SoLuotXem,
                        n.TenCongTy, n.MoTa AS MoTaCongTy, n.Website, n.LogoURL
                 FROM TinTuyenDung t
                 JOIN NhaTuyenDung n ON n.NTDID = t.NTDID
+                LEFT JOIN LuotXemTin lx ON lx.TinID = t.TinID
                 WHERE t.TinID = ?
                 """;
         return jdbcTemplate.queryForMap(sql, id);
     }
 
+    /**
+     * Yêu cầu của tin + phiên bản (rowversion) để chấm điểm ứng viên (null nếu không tồn tại)
+     */
+    public Map<String, Object> findMatchText(int tinId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                SELECT TinID, TieuDe, YeuCau, CAST(PhienBan AS BIGINT) AS PhienBan
+                FROM TinTuyenDung
+                WHERE TinID = ?
+                """, tinId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
     /**
      * Lấy danh sách tin theo Nhà tuyển dụng
      */
     public List<Map<String, Object>> findByEmployer(int ntdId) {
         String sql = """
-                SELECT t.TinID, t.TieuDe, t.MucLuong, t.HanNop, t.TrangThai, t.CreatedAt
+                SELECT t.TinID, t.TieuDe, t.MucLuong, t.HanNop, t.TrangThai, t.CreatedAt,
+                       ISNULL(lx.SoLuotXem, 0) AS SoLuotXem
                 FROM TinTuyenDung t
+                LEFT JOIN LuotXemTin lx ON lx.TinID = t.TinID
                 WHERE t.NTDID = ?
                 ORDER BY t.CreatedAt DESC
                 """;
@@ -104,23 +212,30 @@ public class JobRepository {
     }
 
     /**
-     * Tạo tin tuyển dụng mới
+     * Tạo tin tuyển dụng mới, trả về TinID vừa tạo
      */
     public int createJob(Map<String, Object> job) {
         String sql = """
                 INSERT INTO TinTuyenDung 
-                    (NTDID, TieuDe, MoTa, YeuCau, MucLuong, DiaDiemLamViec, LoaiHinhCongViec, HanNop, TrangThai, CreatedAt)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, N'Đang hiển thị', GETDATE())
+                    (NTDID, TieuDe, MoTa, YeuCau, MucLuong, LuongMin, LuongMax, LuongThoaThuan,
+                     DiaDiemLamViec, MaDiaDiem, LoaiHinhCongViec, HanNop, TrangThai, CreatedAt)
+                OUTPUT INSERTED.TinID
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, N'Đang hiển thị', GETDATE())
                 """;
-        return jdbcTemplate.update(sql,
+        Integer tinId = jdbcTemplate.queryForObject(sql, Integer.class,
                 job.get("NTDID"),
                 job.get("TieuDe"),
                 job.get("MoTa"),
                 job.get("YeuCau"),
                 job.get("MucLuong"),
+                job.get("LuongMin"),
+                job.get("LuongMax"),
+                job.get("LuongThoaThuan"),
                 job.get("DiaDiemLamViec"),
+                job.get("MaDiaDiem"),
                 job.get("LoaiHinhCongViec"),
                 job.get("HanNop"));
+        return tinId == null ? 0 : tinId;
     }
 
     /**
@@ -129,7 +244,8 @@ public class JobRepository {
     public int updateJob(int tinId, Map<String, Object> job) {
         String sql = """
                 UPDATE TinTuyenDung
-                SET TieuDe = ?, MoTa = ?, YeuCau = ?, MucLuong = ?, DiaDiemLamViec = ?, 
+                SET TieuDe = ?, MoTa = ?, YeuCau = ?, MucLuong = ?,
+                    LuongMin = ?, LuongMax = ?, LuongThoaThuan = ?, DiaDiemLamViec = ?, MaDiaDiem = ?,
                     LoaiHinhCongViec = ?, HanNop = ?, TrangThai = ?
                 WHERE TinID = ?
                 """;
@@ -138,13 +254,106 @@ public class JobRepository {
                 job.get("MoTa"),
                 job.get("YeuCau"),
                 job.get("MucLuong"),
+                job.get("LuongMin"),
+                job.get("LuongMax"),
+                job.get("LuongThoaThuan"),
                 job.get("DiaDiemLamViec"),
+                job.get("MaDiaDiem"),
                 job.get("LoaiHinhCongViec"),
                 job.get("HanNop"),
                 job.get("TrangThai"),
                 tinId);
     }
 
+    /**
+     * Lô tin chưa tách lương (TinID > afterTinId), dùng cho backfill theo keyset
+     */
+    public List<Map<String, Object>> findUnparsedSalaries(int afterTinId, int batchSize) {
+        return jdbcTemplate.queryForList("""
+                SELECT TOP (?) TinID, MucLuong
+                FROM TinTuyenDung
+                WHERE TinID > ? AND MucLuong IS NOT NULL
+                  AND LuongMin IS NULL AND LuongMax IS NULL AND LuongThoaThuan = 0
+                ORDER BY TinID
+                """, batchSize, afterTinId);
+    }
+
+    /**
+     * Ghi khoảng lương đã tách cho 1 lô tin (JDBC batch, 1 round trip)
+     * Mỗi phần tử: {LuongMin, LuongMax, LuongThoaThuan, TinID}
+     */
+    public int[] updateSalaries(List<Object[]> rows) {
+        return jdbcTemplate.batchUpdate(
+                "UPDATE TinTuyenDung SET LuongMin = ?, LuongMax = ?, LuongThoaThuan = ? WHERE TinID = ?",
+                rows);
+    }
+
+    /**
+     * Lô tin chưa có mã địa điểm (TinID > afterTinId), dùng cho backfill theo keyset
+     */
+    public List<Map<String, Object>> findUncodedLocations(int afterTinId, int batchSize) {
+        return jdbcTemplate.queryForList("""
+                SELECT TOP (?) TinID, DiaDiemLamViec
+                FROM TinTuyenDung
+                WHERE TinID > ? AND DiaDiemLamViec IS NOT NULL AND MaDiaDiem IS NULL
+                ORDER BY TinID
+                """, batchSize, afterTinId);
+    }
+
+    /**
+     * Ghi mã địa điểm cho 1 lô tin. Mỗi phần tử: {MaDiaDiem, TinID}
+     */
+    public int[] updateLocationCodes(List<Object[]> rows) {
+        return jdbcTemplate.batchUpdate("UPDATE TinTuyenDung SET MaDiaDiem = ? WHERE TinID = ?", rows);
+    }
+
+    /**
+     * Chuyển tối đa {@code batchSize} tin đang hiển thị đã quá HanNop sang "Đã hết hạn".
+     * Mỗi lần gọi là 1 câu lệnh (1 transaction ngắn), seek trên IX_Tin_TrangThai_HanNop.
+     * Trả về các tin vừa được chuyển.
+     */
+    public List<Map<String, Object>> expireBatch(int batchSize) {
+        return jdbcTemplate.queryForList("""
+                UPDATE TOP (?) TinTuyenDung
+                SET TrangThai = N'Đã hết hạn'
+                OUTPUT INSERTED.TinID, INSERTED.NTDID, INSERTED.TieuDe, INSERTED.HanNop, INSERTED.TrangThai
+                WHERE TrangThai = N'Đang hiển thị' AND HanNop < CAST(GETDATE() AS DATE)
+                """, batchSize);
+    }
+
+    /**
+     * Cộng dồn lượt xem cho nhiều tin trong 1 câu MERGE (mỗi phần tử: {TinID, số lượt mới}).
+     * Tin đã bị xóa được bỏ qua nhờ JOIN với TinTuyenDung. Trả về tổng mới: TinID -> SoLuotXem.
+     */
+    public Map<Integer, Long> mergeViewCounts(List<long[]> deltas) {
+        String values = String.join(",", Collections.nCopies(deltas.size(), "(?, ?)"));
+        String sql = """
+                MERGE LuotXemTin AS target
+                USING (
+                    SELECT v.TinID, v.SoLuot
+                    FROM (VALUES %s) AS v(TinID, SoLuot)
+                    JOIN TinTuyenDung t ON t.TinID = v.TinID
+                ) AS src
+                ON target.TinID = src.TinID
+                WHEN MATCHED THEN
+                    UPDATE SET SoLuotXem = target.SoLuotXem + src.SoLuot, CapNhatLuc = GETDATE()
+                WHEN NOT MATCHED THEN
+                    INSERT (TinID, SoLuotXem, CapNhatLuc) VALUES (src.TinID, src.SoLuot, GETDATE())
+                OUTPUT INSERTED.TinID, INSERTED.SoLuotXem;
+                """.formatted(values);
+
+        Object[] params = new Object[deltas.size() * 2];
+        for (int i = 0; i < deltas.size(); i++) {
+            params[2 * i] = (int) deltas.get(i)[0];
+            params[2 * i + 1] = deltas.get(i)[1];
+        }
+        Map<Integer, Long> totals = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql, params)) {
+            totals.put(((Number) row.get("TinID")).intValue(), ((Number) row.get("SoLuotXem")).longValue());
+        }
+        return totals;
+    }
+
     /**
      * Xóa tin tuyển dụng
      */
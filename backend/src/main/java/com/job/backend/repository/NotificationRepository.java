@@ -1,9 +1,12 @@
 package com.job.backend.repository;
 
+import com.job.backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -19,11 +22,153 @@ public class NotificationRepository {
         return jdbcTemplate.queryForList("EXEC sp_Notification_List ?, ?", userId, onlyUnread ? 1 : 0);
     }
 
+    /**
+     * 1 trang lịch sử thông báo, mới nhất trước, phân trang keyset theo (CreatedAt, NotiID) giảm dần
+     * trên IX_Notification_UserID_IsRead_CreatedAt (đủ cột, không cần đọc bảng gốc).
+     * Lấy cả đã đọc lẫn chưa đọc: 2 nhánh seek (IsRead = 0 / 1) mỗi nhánh tối đa limit dòng rồi trộn lại.
+     */
+    public List<Map<String, Object>> listPage(int userId, boolean onlyUnread, KeysetCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        String unread = pageBranch(userId, false, after, limit, params);
+        if (onlyUnread) {
+            return jdbcTemplate.queryForList(unread + " ORDER BY CreatedAt DESC, NotiID DESC", params.toArray());
+        }
+        String read = pageBranch(userId, true, after, limit, params);
+        params.add(0, limit);
+        String sql = "SELECT TOP (?) * FROM (" + unread + " UNION ALL " + read + ") n"
+                + " ORDER BY n.CreatedAt DESC, n.NotiID DESC";
+        return jdbcTemplate.queryForList(sql, params.toArray());
+    }
+
+    private static String pageBranch(int userId, boolean isRead, KeysetCursor after, int limit, List<Object> params) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT * FROM (
+                SELECT TOP (?) NotiID, UserID, TieuDe, NoiDung, IsRead, CreatedAt
+                FROM Notification
+                WHERE UserID = ? AND IsRead = ?
+        """);
+        params.add(limit);
+        params.add(userId);
+        params.add(isRead ? 1 : 0);
+        if (after != null) {
+            // CAST về DATETIME để so sánh đúng độ chính xác với cột CreatedAt
+            sql.append(" AND (CreatedAt < CAST(? AS DATETIME)"
+                    + " OR (CreatedAt = CAST(? AS DATETIME) AND NotiID < ?))");
+            params.add(after.time());
+            params.add(after.time());
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY CreatedAt DESC, NotiID DESC) b").append(isRead ? 1 : 0);
+        return sql.toString();
+    }
+
+    /**
+     * Đánh dấu đã đọc mọi thông báo chưa đọc của user từ con trỏ trở về trước
+     * (CreatedAt, NotiID) <= upTo; upTo null = tất cả. 1 câu UPDATE, seek trên IX_Notification_UserID_IsRead_CreatedAt.
+     * Trả về số thông báo vừa chuyển sang đã đọc.
+     */
+    public int markAllReadUpTo(int userId, KeysetCursor upTo) {
+        StringBuilder sql = new StringBuilder("UPDATE Notification SET IsRead = 1 WHERE UserID = ? AND IsRead = 0");
+        List<Object> params = new ArrayList<>(List.of(userId));
+        if (upTo != null) {
+            sql.append(" AND (CreatedAt < CAST(? AS DATETIME)"
+                    + " OR (CreatedAt = CAST(? AS DATETIME) AND NotiID <= ?))");
+            params.add(upTo.time());
+            params.add(upTo.time());
+            params.add(upTo.id());
+        }
+        return jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+
+    /**
+     * NotiID của thông báo đầu tiên (theo khóa chính) tạo từ {@code cutoff} trở đi, null nếu mọi thông báo
+     * đều cũ hơn. Không có index theo CreatedAt: câu lệnh duyệt khóa chính từ đầu và dừng ở dòng mới đầu tiên,
+     * nên chỉ đọc phần thông báo sắp được lưu trữ (CreatedAt = GETDATE() lúc ghi, tăng theo NotiID).
+     */
+    public Integer findFirstIdCreatedFrom(LocalDateTime cutoff) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT TOP (1) NotiID FROM Notification WHERE CreatedAt >= ? ORDER BY NotiID", Integer.class, cutoff);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Chuyển tối đa {@code batchSize} thông báo tạo trước {@code cutoff} và có NotiID < {@code beforeId}
+     * sang NotificationArchive trong 1 câu DELETE ... OUTPUT INTO (1 transaction ngắn). Điều kiện NotiID
+     * là khoảng trên khóa chính nên câu lệnh (kể cả lô cuối, ít dòng) dừng ở beforeId, không quét cả bảng;
+     * beforeId lấy từ findFirstIdCreatedFrom, null = không giới hạn.
+     * Trả về {UserID, IsRead} của các thông báo vừa chuyển.
+     */
+    public List<Map<String, Object>> archiveBatch(LocalDateTime cutoff, Integer beforeId, int batchSize) {
+        return jdbcTemplate.queryForList("""
+            DELETE TOP (?) FROM Notification
+            OUTPUT DELETED.NotiID, DELETED.UserID, DELETED.TieuDe, DELETED.NoiDung, DELETED.IsRead, DELETED.CreatedAt
+                INTO NotificationArchive (NotiID, UserID, TieuDe, NoiDung, IsRead, CreatedAt)
+            OUTPUT DELETED.UserID, DELETED.IsRead
+            WHERE NotiID < ? AND CreatedAt < ?
+        """, batchSize, beforeId == null ? Integer.MAX_VALUE : beforeId, cutoff);
+    }
+
+    /**
+     * Ghi 1 thông báo cho tối đa {@code limit} ứng viên đã ứng tuyển vào tin (mỗi user 1 dòng dù nộp nhiều lần),
+     * lấy những UserID > afterUserId theo thứ tự tăng dần: 1 câu INSERT ... SELECT, không kéo danh sách về ứng dụng.
+     * Trả về các dòng vừa ghi; UserID lớn nhất trong đó là afterUserId của lần gọi tiếp theo.
+     */
+    public List<Map<String, Object>> insertForJobApplicants(int tinId, int afterUserId, String tieuDe, String noiDung, int limit) {
+        return jdbcTemplate.queryForList("""
+            INSERT INTO Notification (UserID, TieuDe, NoiDung, IsRead, CreatedAt)
+            OUTPUT INSERTED.NotiID, INSERTED.UserID, INSERTED.TieuDe, INSERTED.NoiDung, INSERTED.IsRead, INSERTED.CreatedAt
+            SELECT TOP (?) a.UserID, ?, ?, 0, GETDATE()
+            FROM (
+                SELECT DISTINCT uv.UserID
+                FROM UngTuyen ut
+                JOIN UngVien uv ON uv.UngVienID = ut.UngVienID
+                WHERE ut.TinID = ? AND uv.UserID > ?
+            ) a
+            ORDER BY a.UserID
+        """, limit, tieuDe, noiDung, tinId, afterUserId);
+    }
+
+    /**
+     * Các thông báo của user cần phát lại khi kênh realtime kết nối lại từ NotiID {@code afterId}, tăng dần:
+     * mọi NotiID > afterId, cộng các NotiID < afterId ghi trong {@code commitLagMillis} trước thông báo afterId.
+     * NotiID là IDENTITY nên giao dịch giữ số nhỏ hơn có thể commit sau khi client đã nhận afterId;
+     * khoảng trễ này bắt lại chúng. Thông báo afterId không còn (đã lưu trữ) thì chỉ lấy NotiID > afterId.
+     */
+    public List<Map<String, Object>> listSince(int userId, int afterId, int commitLagMillis, int limit) {
+        return jdbcTemplate.queryForList("""
+            SELECT TOP (?) NotiID, UserID, TieuDe, NoiDung, IsRead, CreatedAt
+            FROM Notification
+            WHERE UserID = ?
+              AND (NotiID > ?
+                   OR (NotiID < ? AND CreatedAt >= DATEADD(MILLISECOND, -?,
+                        (SELECT CreatedAt FROM Notification WHERE NotiID = ? AND UserID = ?))))
+            ORDER BY NotiID
+        """, limit, userId, afterId, afterId, commitLagMillis, afterId, userId);
+    }
+
+    /**
+     * Số thông báo chưa đọc của user và NotiID lớn nhất tại thời điểm đếm (0 nếu chưa có thông báo).
+     * Chỉ đọc IX_Notification_UserID_NotiID (INCLUDE IsRead).
+     */
+    public Map<String, Object> countUnread(int userId) {
+        return jdbcTemplate.queryForMap("""
+            SELECT COUNT(CASE WHEN IsRead = 0 THEN 1 END) AS ChuaDoc, ISNULL(MAX(NotiID), 0) AS NotiIDMax
+            FROM Notification
+            WHERE UserID = ?
+        """, userId);
+    }
+
     /**
      * Đánh dấu thông báo là đã đọc.
+     * Trả về {UserID, DaDocTruocDo} của thông báo (null nếu không tồn tại),
+     * DaDocTruocDo = 1 nếu thông báo đã được đọc từ trước (bộ đếm chưa đọc không đổi).
      */
-    public int markAsRead(int notiId) {
-        String sql = "UPDATE Notification SET IsRead = 1 WHERE NotiID = ?";
-        return jdbcTemplate.update(sql, notiId);
+    public Map<String, Object> markAsRead(int notiId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+            UPDATE Notification SET IsRead = 1
+            OUTPUT INSERTED.UserID, DELETED.IsRead AS DaDocTruocDo
+            WHERE NotiID = ?
+        """, notiId);
+        return rows.isEmpty() ? null : rows.get(0);
     }
 }
@@ -1,16 +1,27 @@
 package com.job.backend.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 public class ProfileRepository {
 
+    /**
+     * Các cột nội dung hồ sơ dùng để so khớp với tin tuyển dụng
+     */
+    private static final String MATCHING_SQL = """
+            SELECT UngVienID, UserID, HocVan, KyNang, KinhNghiem
+            FROM UngVien
+            """;
+
     private final JdbcTemplate jdbcTemplate;
 
     /**
@@ -94,6 +105,32 @@ public class ProfileRepository {
         return jdbcTemplate.update("DELETE FROM UngVien WHERE UngVienID = ?", ungVienId);
     }
 
+    /**
+     * Duyệt lần lượt nội dung so khớp của mọi hồ sơ (không gom cả bảng vào List)
+     */
+    public void streamMatchingProfiles(Consumer<Map<String, Object>> consumer) {
+        ColumnMapRowMapper mapper = new ColumnMapRowMapper();
+        jdbcTemplate.query(MATCHING_SQL,
+                (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Nội dung so khớp của 1 hồ sơ (null nếu không tồn tại)
+     */
+    public Map<String, Object> findMatchingProfile(int ungVienId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(MATCHING_SQL + " WHERE UngVienID = ?", ungVienId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Hồ sơ có tồn tại không
+     */
+    public boolean exists(int ungVienId) {
+        Integer found = jdbcTemplate.query("SELECT 1 FROM UngVien WHERE UngVienID = ?",
+                rs -> rs.next() ? 1 : null, ungVienId);
+        return found != null;
+    }
+
     /**
      * Cập nhật đường dẫn CV
      */
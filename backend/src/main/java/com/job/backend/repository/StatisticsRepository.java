@@ -3,8 +3,13 @@ package com.job.backend.repository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
@@ -12,6 +17,15 @@ public class StatisticsRepository {
 
     private final JdbcTemplate jdbcTemplate;
 
+    // Tên dòng tiến độ trong ThongKeTienDo
+    private static final String CURSOR_NAME = "NhatKyTrangThai";
+    // 5 tham số mỗi dòng, SQL Server giới hạn 2100 tham số mỗi câu lệnh
+    private static final int MERGE_CHUNK = 400;
+    // Trạng thái hồ sơ được tính là trúng tuyển / qua vòng (như sp_Employer_Statistics trước đây)
+    public static final List<String> ACCEPTED_STATUSES = List.of("Đã duyệt", "Trúng tuyển", "Đã nhận");
+    private static final String ACCEPTED_SQL = ACCEPTED_STATUSES.stream()
+            .map(s -> "N'" + s + "'").collect(Collectors.joining(", "));
+
     public Map<String, Object> getEmployerStats(int ntdId) {
         // Gọi SP và chia làm hai phần kết quả
         String sql = "EXEC sp_Employer_Statistics ?";
@@ -22,15 +36,144 @@ public class StatisticsRepository {
         return results.get(0);
     }
 
+    /**
+     * Số liệu theo tháng của nhà tuyển dụng, đọc thẳng các dòng đã tổng hợp sẵn (seek UQ_ThongKe_NTD_Thang).
+     * Chỉ lấy tháng có hồ sơ ứng tuyển, như result set 2 của sp_Employer_Statistics.
+     */
     public List<Map<String, Object>> getMonthlyApplications(int ntdId) {
         String sql = """
-            SELECT FORMAT(ut.NgayUngTuyen, 'yyyy-MM') AS Thang, COUNT(*) AS SoLuong
-            FROM UngTuyen ut
-            JOIN TinTuyenDung t ON t.TinID = ut.TinID
-            WHERE t.NTDID = ?
-            GROUP BY FORMAT(ut.NgayUngTuyen, 'yyyy-MM')
-            ORDER BY Thang
+            SELECT ThangNam AS Thang, SoUngVienUngTuyen AS SoLuong,
+                   SoTinDang, SoHoSoTrungTuyen, TyLeThanhCong
+            FROM ThongKeTuyenDung
+            WHERE NTDID = ? AND SoUngVienUngTuyen > 0
+            ORDER BY ThangNam
         """;
         return jdbcTemplate.queryForList(sql, ntdId);
     }
+
+    /**
+     * Vị trí (SoThuTu) đã áp dụng của NhatKyTrangThai, null nếu chưa từng tổng hợp.
+     */
+    public Long findCursor() {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT SoThuTu FROM ThongKeTienDo WHERE Ten = ?", Long.class, CURSOR_NAME);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Các dòng nhật ký hồ sơ ứng tuyển sau {@code after}, tăng dần, kèm tháng nộp hồ sơ (yyyy-MM).
+     * Bỏ qua các dòng mới ghi trong {@code lagSeconds} giây gần nhất: SoThuTu là IDENTITY nên
+     * giao dịch có số nhỏ hơn có thể commit sau, chờ 1 chút để không đọc vượt qua nó.
+     * Hồ sơ đã bị xóa (xóa tin) trả ThangNam null, vẫn trả dòng để tiến con trỏ.
+     */
+    public List<Map<String, Object>> readChangeLog(long after, int lagSeconds, int limit) {
+        return jdbcTemplate.queryForList("""
+            SELECT TOP (?) nk.SoThuTu, nk.LoaiDoiTuong, nk.NTDID, nk.TrangThaiCu, nk.TrangThaiMoi,
+                   CONVERT(CHAR(7), ut.NgayUngTuyen, 126) AS ThangNam
+            FROM dbo.NhatKyTrangThai nk
+            LEFT JOIN dbo.UngTuyen ut ON ut.UngTuyenID = nk.UngTuyenID
+            WHERE nk.SoThuTu > ? AND nk.ThoiDiem < DATEADD(SECOND, -?, GETDATE())
+            ORDER BY nk.SoThuTu
+        """, limit, after, lagSeconds);
+    }
+
+    /**
+     * Cộng dồn thay đổi vào ThongKeTuyenDung và lưu vị trí nhật ký trong cùng 1 giao dịch
+     * (không cộng trùng khi chạy lại). Mỗi phần tử deltas: {NTDID, ThangNam, +SoTinDang, +SoUngVien, +SoTrungTuyen};
+     * TyLeThanhCong tính lại từ giá trị mới. Nhà tuyển dụng đã bị xóa được bỏ qua nhờ JOIN với NhaTuyenDung
+     * (không chèn dòng vi phạm FK_ThongKe_NTD làm hỏng cả lượt ghi). Vị trí nhật ký chuyển từ {@code from} sang {@code to}
+     * (to null = không đổi); vị trí đã bị tiến trình khác đổi thì hủy cả giao dịch.
+     *
+     * @throws IllegalStateException nếu vị trí hiện tại không còn là {@code from}
+     */
+    @Transactional
+    public void applyDeltas(List<Object[]> deltas, long from, Long to) {
+        for (int start = 0; start < deltas.size(); start += MERGE_CHUNK) {
+            List<Object[]> chunk = deltas.subList(start, Math.min(start + MERGE_CHUNK, deltas.size()));
+            String sql = """
+                MERGE ThongKeTuyenDung AS target
+                USING (
+                    SELECT v.NTDID, v.ThangNam, v.SoTin, v.SoUngVien, v.SoTrung
+                    FROM (VALUES %s) AS v(NTDID, ThangNam, SoTin, SoUngVien, SoTrung)
+                    JOIN NhaTuyenDung n ON n.NTDID = v.NTDID
+                ) AS src
+                ON target.NTDID = src.NTDID AND target.ThangNam = src.ThangNam
+                WHEN MATCHED THEN UPDATE SET
+                    SoTinDang = target.SoTinDang + src.SoTin,
+                    SoUngVienUngTuyen = target.SoUngVienUngTuyen + src.SoUngVien,
+                    SoHoSoTrungTuyen = target.SoHoSoTrungTuyen + src.SoTrung,
+                    TyLeThanhCong = CASE WHEN target.SoUngVienUngTuyen + src.SoUngVien > 0
+                        THEN CAST(target.SoHoSoTrungTuyen + src.SoTrung AS FLOAT)
+                             / (target.SoUngVienUngTuyen + src.SoUngVien) END
+                WHEN NOT MATCHED THEN
+                    INSERT (NTDID, ThangNam, SoTinDang, SoUngVienUngTuyen, SoHoSoTrungTuyen, TyLeThanhCong)
+                    VALUES (src.NTDID, src.ThangNam, src.SoTin, src.SoUngVien, src.SoTrung,
+                            CASE WHEN src.SoUngVien > 0 THEN CAST(src.SoTrung AS FLOAT) / src.SoUngVien END);
+            """.formatted(String.join(",", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?)")));
+            List<Object> params = new ArrayList<>(chunk.size() * 5);
+            for (Object[] row : chunk) Collections.addAll(params, row);
+            jdbcTemplate.update(sql, params.toArray());
+        }
+        if (to != null) {
+            int moved = jdbcTemplate.update("""
+                UPDATE ThongKeTienDo SET SoThuTu = ?, CapNhatLuc = GETDATE()
+                WHERE Ten = ? AND SoThuTu = ?
+            """, to, CURSOR_NAME, from);
+            if (moved == 0) {
+                throw new IllegalStateException("Vị trí nhật ký thống kê đã bị tiến trình khác cập nhật");
+            }
+        }
+    }
+
+    /**
+     * Đối soát: tính lại toàn bộ ThongKeTuyenDung từ TinTuyenDung/UngTuyen bằng 1 câu MERGE
+     * (chỉ ghi các dòng lệch, xóa dòng không còn dữ liệu) rồi đặt vị trí nhật ký về cuối.
+     * Trả về số dòng đã sửa.
+     */
+    @Transactional
+    public int reconcile() {
+        Long last = jdbcTemplate.queryForObject("SELECT ISNULL(MAX(SoThuTu), 0) FROM dbo.NhatKyTrangThai", Long.class);
+        int changed = jdbcTemplate.update("""
+            WITH tin AS (
+                SELECT NTDID, CONVERT(CHAR(7), CreatedAt, 126) AS ThangNam, COUNT(*) AS SoTin
+                FROM dbo.TinTuyenDung
+                GROUP BY NTDID, CONVERT(CHAR(7), CreatedAt, 126)
+            ), hs AS (
+                SELECT t.NTDID, CONVERT(CHAR(7), ut.NgayUngTuyen, 126) AS ThangNam, COUNT(*) AS SoUngVien,
+                       SUM(CASE WHEN ut.TrangThai IN (%s) THEN 1 ELSE 0 END) AS SoTrung
+                FROM dbo.UngTuyen ut
+                JOIN dbo.TinTuyenDung t ON t.TinID = ut.TinID
+                GROUP BY t.NTDID, CONVERT(CHAR(7), ut.NgayUngTuyen, 126)
+            ), src AS (
+                SELECT COALESCE(tin.NTDID, hs.NTDID) AS NTDID, COALESCE(tin.ThangNam, hs.ThangNam) AS ThangNam,
+                       ISNULL(tin.SoTin, 0) AS SoTin, ISNULL(hs.SoUngVien, 0) AS SoUngVien, ISNULL(hs.SoTrung, 0) AS SoTrung,
+                       CASE WHEN hs.SoUngVien > 0 THEN CAST(hs.SoTrung AS FLOAT) / hs.SoUngVien END AS TyLe
+                FROM tin
+                FULL JOIN hs ON hs.NTDID = tin.NTDID AND hs.ThangNam = tin.ThangNam
+            )
+            MERGE ThongKeTuyenDung AS target
+            USING src
+            ON target.NTDID = src.NTDID AND target.ThangNam = src.ThangNam
+            WHEN MATCHED AND (target.SoTinDang <> src.SoTin OR target.SoUngVienUngTuyen <> src.SoUngVien
+                              OR target.SoHoSoTrungTuyen <> src.SoTrung) THEN UPDATE SET
+                SoTinDang = src.SoTin, SoUngVienUngTuyen = src.SoUngVien,
+                SoHoSoTrungTuyen = src.SoTrung, TyLeThanhCong = src.TyLe
+            WHEN NOT MATCHED BY TARGET THEN
+                INSERT (NTDID, ThangNam, SoTinDang, SoUngVienUngTuyen, SoHoSoTrungTuyen, TyLeThanhCong)
+                VALUES (src.NTDID, src.ThangNam, src.SoTin, src.SoUngVien, src.SoTrung, src.TyLe)
+            WHEN NOT MATCHED BY SOURCE THEN DELETE;
+        """.formatted(ACCEPTED_SQL));
+        saveCursor(last);
+        return changed;
+    }
+
+    private void saveCursor(long soThuTu) {
+        jdbcTemplate.update("""
+            MERGE ThongKeTienDo AS target
+            USING (SELECT ? AS Ten, ? AS SoThuTu) AS src
+            ON target.Ten = src.Ten
+            WHEN MATCHED THEN UPDATE SET SoThuTu = src.SoThuTu, CapNhatLuc = GETDATE()
+            WHEN NOT MATCHED THEN INSERT (Ten, SoThuTu) VALUES (src.Ten, src.SoThuTu);
+        """, CURSOR_NAME, soThuTu);
+    }
 }
@@ -0,0 +1,167 @@
+package com.job.backend.service;
+
+import com.job.backend.event.JobChangedEvent;
+import com.job.backend.repository.JobRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Khung chung cho các index trong bộ nhớ xây từ các tin đang hiển thị.
+ * - Nạp toàn bộ khi ứng dụng khởi động xong (ApplicationReadyEvent).
+ * - Trong lúc nạp, các JobChangedEvent được xếp hàng và áp dụng lại sau khi nạp xong.
+ * - Nạp lỗi (DB chưa sẵn sàng...) thì index không dùng được, nơi gọi phải fallback về SQL;
+ *   cứ app.index.retry-ms thử nạp lại cho tới khi được.
+ * Lớp con chỉ cần cài đặt clear/put/remove; mọi thao tác ghi chạy dưới write lock
+ * (lúc nạp, put được gọi theo từng lô {@value #LOAD_CHUNK} tin, mỗi lô giữ write lock 1 lần,
+ * nên lớp con nào vẫn phục vụ đọc trong lúc nạp cũng không đọc trúng cấu trúc đang bị sửa).
+ */
+public abstract class AbstractJobIndex {
+
+    private enum State { LOADING, READY, FAILED }
+
+    private static final int LOAD_CHUNK = 1000;
+
+    protected final JobRepository jobRepository;
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<JobChangedEvent> pending = new ArrayList<>();
+    private volatile State state = State.LOADING;
+
+    protected AbstractJobIndex(JobRepository jobRepository) {
+        this.jobRepository = jobRepository;
+    }
+
+    /** Xóa toàn bộ dữ liệu index. */
+    protected abstract void clear();
+
+    /** Thêm (hoặc thay thế) một tin đang hiển thị. */
+    protected abstract void put(int tinId, Map<String, Object> row);
+
+    /** Gỡ một tin khỏi index (không có thì bỏ qua). */
+    protected abstract void remove(int tinId);
+
+    /** Tên index để ghi log. */
+    protected abstract String name();
+
+    /** Gọi sau khi đã put toàn bộ tin, trước khi áp dụng các sự kiện xếp hàng (mặc định không làm gì). */
+    protected void loaded() {
+    }
+
+    /** Gọi dưới write lock khi nạp lỗi, sau clear() (mặc định không làm gì). */
+    protected void loadFailed() {
+    }
+
+    /**
+     * Lớp con vẫn phục vụ dữ liệu cũ khi nạp lỗi thì trả true: các sự kiện xếp hàng trong lần nạp lỗi
+     * và sự kiện tới sau đó được áp dụng tiếp (sau loadFailed) thay vì bỏ. Mặc định false (index rỗng, không dùng).
+     */
+    protected boolean appliesWhileFailed() {
+        return false;
+    }
+
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    // Lần nạp trước lỗi: thử lại, không chờ tới lần dựng lại theo lịch
+    @Scheduled(initialDelayString = "${app.index.retry-ms:60000}", fixedDelayString = "${app.index.retry-ms:60000}")
+    public void retryFailedLoad() {
+        if (state == State.FAILED) rebuild();
+    }
+
+    /**
+     * Nạp lại toàn bộ index từ DB. Trong lúc nạp index không phục vụ truy vấn.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            state = State.LOADING;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            int[] count = {0};
+            List<Map<String, Object>> chunk = new ArrayList<>(LOAD_CHUNK);
+            jobRepository.streamActiveSnapshots(row -> {
+                chunk.add(row);
+                count[0]++;
+                if (chunk.size() >= LOAD_CHUNK) putAll(chunk);
+            });
+            putAll(chunk);
+            loaded();
+
+            lock.writeLock().lock();
+            try {
+                pending.forEach(this::apply);
+                pending.clear();
+                state = State.READY;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("✅ " + name() + ": đã nạp " + count[0] + " tin trong "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                clear();
+                loadFailed();
+                if (appliesWhileFailed()) pending.forEach(this::apply);
+                pending.clear();
+                state = State.FAILED;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.err.println("❌ " + name() + ": không nạp được index, dùng truy vấn SQL thay thế: " + e.getMessage());
+        }
+    }
+
+    // Ghi 1 lô tin đang nạp dưới write lock rồi làm rỗng lô
+    private void putAll(List<Map<String, Object>> chunk) {
+        lock.writeLock().lock();
+        try {
+            for (Map<String, Object> row : chunk) {
+                put(((Number) row.get("TinID")).intValue(), row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        chunk.clear();
+    }
+
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            switch (state) {
+                case LOADING -> pending.add(event);
+                case READY -> apply(event);
+                case FAILED -> {
+                    if (appliesWhileFailed()) apply(event);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(JobChangedEvent event) {
+        remove(event.tinId());
+        if (event.isActive()) {
+            put(event.tinId(), event.row());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.job.backend.service;
+
+import com.job.backend.repository.ApplicationRepository;
+import com.job.backend.util.CsvTableWriter;
+import com.job.backend.util.TableWriter;
+import com.job.backend.util.XlsxTableWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Xuất danh sách ứng viên của 1 tin ra CSV/XLSX theo kiểu streaming:
+ * đọc từng dòng từ con trỏ JDBC và ghi thẳng ra response, bộ nhớ không tăng theo số ứng viên.
+ */
+@Service
+@RequiredArgsConstructor
+public class ApplicantExportService {
+
+    public enum Format { CSV, XLSX }
+
+    private static final String[] HEADER = {
+            "Mã hồ sơ", "Ngày ứng tuyển", "Trạng thái", "Họ tên", "Email", "Điện thoại",
+            "Ngày sinh", "Giới tính", "Địa chỉ", "Học vấn", "Kỹ năng", "Kinh nghiệm", "CV", "Ghi chú"
+    };
+
+    // Số dòng giữa 2 lần đẩy dữ liệu xuống client
+    private static final int FLUSH_EVERY = 200;
+
+    private final ApplicationRepository repository;
+
+    @Value("${app.export.fetch-size:500}")
+    private int fetchSize;
+
+    public StreamingResponseBody exportByJob(int tinID, Format format) {
+        return out -> {
+            try (TableWriter writer = format == Format.XLSX
+                    ? new XlsxTableWriter(out, "Ung vien tin " + tinID)
+                    : new CsvTableWriter(out)) {
+                writer.writeRow((Object[]) HEADER);
+                writer.flush();
+
+                int[] count = {0};
+                repository.streamByJob(tinID, fetchSize, rs -> {
+                    try {
+                        writer.writeRow(toCells(rs));
+                        if (++count[0] % FLUSH_EVERY == 0) writer.flush();
+                    } catch (IOException e) {
+                        // Client ngắt kết nối giữa chừng -> dừng đọc DB
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+    }
+
+    private static Object[] toCells(ResultSet rs) throws SQLException {
+        return new Object[]{
+                rs.getInt("UngTuyenID"),
+                formatDate(rs.getTimestamp("NgayUngTuyen"), "yyyy-MM-dd HH:mm"),
+                rs.getString("TrangThai"),
+                rs.getString("FullName"),
+                rs.getString("Email"),
+                rs.getString("Phone"),
+                formatDate(rs.getDate("NgaySinh"), "yyyy-MM-dd"),
+                rs.getString("GioiTinh"),
+                rs.getString("DiaChi"),
+                rs.getString("HocVan"),
+                rs.getString("KyNang"),
+                rs.getString("KinhNghiem"),
+                rs.getString("CVLink"),
+                rs.getString("GhiChu")
+        };
+    }
+
+    private static String formatDate(Date value, String pattern) {
+        if (value == null) return null;
+        if (value instanceof Timestamp ts) value = new Date(ts.getTime());
+        return new SimpleDateFormat(pattern).format(value);
+    }
+}
@@ -0,0 +1,192 @@
+package com.job.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.job.backend.repository.ApplicationRepository;
+import com.job.backend.repository.JobRepository;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chấm điểm mức độ phù hợp giữa hồ sơ ứng viên (KyNang, KinhNghiem, HocVan) và YeuCau của tin,
+ * dùng cho GET /api/applications/job/{jobId}?sort=match.
+ * - Điểm = % "trọng lượng" yêu cầu được hồ sơ đáp ứng (từ đơn + cụm 2 từ, cụm khớp được tính nặng hơn);
+ *   khớp trong KyNang tính đủ, khớp trong KinhNghiem/HocVan tính một phần.
+ * - Cache theo (UngTuyenID, phiên bản hồ sơ, phiên bản tin): phiên bản là rowversion nên hồ sơ hay tin
+ *   vừa sửa sẽ tự ra khóa mới, xem lại danh sách chỉ tốn 1 truy vấn khóa + 1 truy vấn trang.
+ * - Các hồ sơ chưa có điểm được chấm song song (parallel stream trên ForkJoinPool chung).
+ */
+@Service
+public class ApplicantMatchService implements MetricsSource {
+
+    // SQL Server giới hạn 2100 tham số mỗi câu lệnh
+    private static final int IN_CHUNK = 1000;
+    private static final double SKILL_WEIGHT = 1.0;
+    private static final double OTHER_WEIGHT = 0.6;
+    private static final Set<String> STOPWORDS = Set.of(
+            "va", "cac", "co", "la", "cua", "cho", "voi", "trong", "duoc", "nhung", "mot", "tren", "tu",
+            "the", "and", "or", "of", "to", "in", "with", "for", "a", "an", "is", "are");
+
+    private final ApplicationRepository applicationRepository;
+    private final JobRepository jobRepository;
+    private final Cache<ScoreKey, Double> cache;
+
+    public ApplicantMatchService(ApplicationRepository applicationRepository, JobRepository jobRepository,
+                                 @Value("${app.match.cache-size:200000}") long cacheSize) {
+        this.applicationRepository = applicationRepository;
+        this.jobRepository = jobRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+    }
+
+    private record ScoreKey(int ungTuyenId, long profileVersion, long jobVersion) {
+    }
+
+    private record Ranked(int ungTuyenId, double score, long appliedAt) {
+    }
+
+    /**
+     * Danh sách ứng viên của tin xếp theo điểm phù hợp (cao trước, bằng điểm thì nộp mới hơn trước).
+     * Trả về null nếu không tìm thấy tin.
+     */
+    public Map<String, Object> rankByJob(int tinID, int page, int size) {
+        Map<String, Object> job = jobRepository.findMatchText(tinID);
+        if (job == null) return null;
+        long jobVersion = ((Number) job.get("PhienBan")).longValue();
+        Map<String, Double> requirement = requirementTerms(job);
+
+        List<Map<String, Object>> keys = applicationRepository.listMatchKeys(tinID);
+        List<Ranked> ranked = new ArrayList<>(keys.size());
+        Map<Integer, ScoreKey> missing = new HashMap<>();
+        for (Map<String, Object> row : keys) {
+            int id = ((Number) row.get("UngTuyenID")).intValue();
+            ScoreKey key = new ScoreKey(id, ((Number) row.get("PhienBan")).longValue(), jobVersion);
+            Double score = cache.getIfPresent(key);
+            if (score == null) {
+                missing.put(id, key);
+                score = 0.0;
+            }
+            ranked.add(new Ranked(id, score, appliedAt(row.get("NgayUngTuyen"))));
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Integer, Double> fresh = scoreMissing(new ArrayList<>(missing.keySet()), requirement);
+            fresh.forEach((id, score) -> cache.put(missing.get(id), score));
+            ranked.replaceAll(r -> fresh.containsKey(r.ungTuyenId())
+                    ? new Ranked(r.ungTuyenId(), fresh.get(r.ungTuyenId()), r.appliedAt()) : r);
+        }
+
+        ranked.sort(Comparator.comparingDouble(Ranked::score).reversed()
+                .thenComparing(Comparator.comparingLong(Ranked::appliedAt).reversed()));
+
+        int from = Math.min(Math.max(page - 1, 0) * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        List<Ranked> slice = ranked.subList(from, to);
+        List<Map<String, Object>> items = applicationRepository.findByIds(slice.stream().map(Ranked::ungTuyenId).toList());
+        Map<Integer, Double> scores = new HashMap<>();
+        slice.forEach(r -> scores.put(r.ungTuyenId(), r.score()));
+        for (Map<String, Object> item : items) {
+            item.put("DiemPhuHop", scores.get(((Number) item.get("UngTuyenID")).intValue()));
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("page", page);
+        resp.put("size", size);
+        resp.put("total", ranked.size());
+        resp.put("items", items);
+        return resp;
+    }
+
+    // Đọc nội dung theo lô (giới hạn tham số IN) rồi chấm điểm song song
+    private Map<Integer, Double> scoreMissing(List<Integer> ids, Map<String, Double> requirement) {
+        List<Map<String, Object>> texts = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += IN_CHUNK) {
+            texts.addAll(applicationRepository.findMatchTexts(ids.subList(i, Math.min(i + IN_CHUNK, ids.size()))));
+        }
+        Map<Integer, Double> result = new HashMap<>();
+        texts.parallelStream()
+                .map(row -> Map.entry(((Number) row.get("UngTuyenID")).intValue(), score(requirement, row)))
+                .toList()
+                .forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    /**
+     * Điểm 0..100: tổng trọng lượng các từ/cụm yêu cầu mà hồ sơ có, chia cho tổng trọng lượng yêu cầu.
+     */
+    private static double score(Map<String, Double> requirement, Map<String, Object> profile) {
+        double total = 0;
+        for (double w : requirement.values()) total += w;
+        if (total == 0) return 0;
+
+        Set<String> skills = terms(profile.get("KyNang")).keySet();
+        Map<String, Double> others = terms(profile.get("KinhNghiem"));
+        others.putAll(terms(profile.get("HocVan")));
+
+        double matched = 0;
+        for (Map.Entry<String, Double> e : requirement.entrySet()) {
+            if (skills.contains(e.getKey())) {
+                matched += e.getValue() * SKILL_WEIGHT;
+            } else if (others.containsKey(e.getKey())) {
+                matched += e.getValue() * OTHER_WEIGHT;
+            }
+        }
+        return Math.round(matched / total * 1000) / 10.0;
+    }
+
+    // Yêu cầu của tin; thiếu YeuCau thì dùng tiêu đề
+    private static Map<String, Double> requirementTerms(Map<String, Object> job) {
+        Map<String, Double> terms = terms(job.get("YeuCau"));
+        return terms.isEmpty() ? terms(job.get("TieuDe")) : terms;
+    }
+
+    // Từ đơn (trọng lượng 1) + cụm 2 từ liền nhau (trọng lượng 2), bỏ hư từ
+    private static Map<String, Double> terms(Object text) {
+        Map<String, Double> terms = new HashMap<>();
+        if (text == null) return terms;
+        List<String> tokens = TextNormalizer.tokenize(text.toString());
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (STOPWORDS.contains(token)) continue;
+            terms.put(token, 1.0);
+            if (i > 0 && !STOPWORDS.contains(tokens.get(i - 1))) {
+                terms.put(tokens.get(i - 1) + "_" + token, 2.0);
+            }
+        }
+        return terms;
+    }
+
+    private static long appliedAt(Object value) {
+        return value instanceof Timestamp ts ? ts.getTime() : 0L;
+    }
+
+    @Override
+    public String metricsName() {
+        return "applicant-match-cache";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("hitCount", stats.hitCount());
+        m.put("missCount", stats.missCount());
+        m.put("hitRate", stats.hitRate());
+        m.put("evictionCount", stats.evictionCount());
+        m.put("entries", cache.estimatedSize());
+        return m;
+    }
+}
@@ -0,0 +1,326 @@
+package com.job.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.job.backend.event.ProfileChangedEvent;
+import com.job.backend.repository.ApplicationRepository;
+import com.job.backend.repository.JobRepository;
+import com.job.backend.repository.ProfileRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nhận hồ sơ ứng tuyển kiểu ghi sau (POST /api/applications/intake) cho lúc cao điểm.
+ * - Kiểm tra nhanh trong bộ nhớ: tin đang hiển thị (JobFacetIndex), ứng viên tồn tại (cache Caffeine),
+ *   rồi trả ngay 1 phiếu (idempotency key) thay vì chờ sp_Application_Create.
+ * - Phiếu xếp vào hàng đợi có giới hạn; đầy thì từ chối (429) để client thử lại sau.
+ * - Cứ app.intake.flush-ms gom tối đa {@value #BATCH_SIZE} phiếu thành 1 câu MERGE; DB vẫn kiểm tra lại
+ *   tin/ứng viên lúc ghi. Lỗi kết nối thì thử lại tối đa {@value #MAX_ATTEMPTS} lần.
+ *   Việc ghi chạy trên luồng riêng (không dùng chung bộ lập lịch @Scheduled với các job nền chạy lâu),
+ *   để job khác chạy chậm không làm hàng đợi đầy.
+ * - Gửi lại cùng Idempotency-Key trả về đúng phiếu cũ, không tạo hồ sơ thứ hai;
+ *   GET /api/applications/intake/{key} cho biết phiếu đã ghi chưa và UngTuyenID.
+ *   Key tính riêng cho từng tài khoản (UserID trong token): user khác dùng trùng key không đụng phiếu
+ *   của nhau, cũng không đọc được phiếu của nhau.
+ */
+@Service
+public class ApplicationIntakeService implements MetricsSource {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_SAVED = "SAVED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    // 4 tham số mỗi dòng, SQL Server giới hạn 2100 tham số mỗi câu lệnh
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_KEY_LENGTH = 100;
+
+    /**
+     * Phiếu nhận hồ sơ: trạng thái thay đổi từ luồng ghi nên các trường là volatile.
+     */
+    private static final class Ticket {
+        final String key;
+        final int ungVienId;
+        final int tinId;
+        final String ghiChu;
+        final LocalDateTime receivedAt = LocalDateTime.now();
+        volatile String status = STATUS_QUEUED;
+        volatile Integer ungTuyenId;
+        volatile Object ngayUngTuyen;
+        volatile Object trangThai;
+        volatile String error;
+        int attempts;
+
+        Ticket(String key, int ungVienId, int tinId, String ghiChu) {
+            this.key = key;
+            this.ungVienId = ungVienId;
+            this.tinId = tinId;
+            this.ghiChu = ghiChu;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("key", key);
+            m.put("status", status);
+            m.put("UngVienID", ungVienId);
+            m.put("TinID", tinId);
+            m.put("receivedAt", receivedAt);
+            if (ungTuyenId != null) {
+                m.put("UngTuyenID", ungTuyenId);
+                m.put("NgayUngTuyen", ngayUngTuyen);
+                m.put("TrangThai", trangThai);
+            }
+            if (error != null) m.put("error", error);
+            return m;
+        }
+    }
+
+    private final ApplicationRepository applicationRepository;
+    private final JobRepository jobRepository;
+    private final JobFacetIndex facetIndex;
+    private final BlockingQueue<Ticket> queue;
+    private final int capacity;
+    private final Cache<String, Ticket> tickets;
+    private final LoadingCache<Integer, Boolean> profiles;
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "application-intake");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder rejectedFull = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+    private volatile String lastError;
+
+    public ApplicationIntakeService(ApplicationRepository applicationRepository,
+                                    JobRepository jobRepository,
+                                    ProfileRepository profileRepository,
+                                    JobFacetIndex facetIndex,
+                                    @Value("${app.intake.queue-capacity:5000}") int capacity,
+                                    @Value("${app.intake.ticket-ttl-minutes:60}") long ticketTtlMinutes,
+                                    @Value("${app.intake.flush-ms:200}") long flushMillis) {
+        this.applicationRepository = applicationRepository;
+        this.jobRepository = jobRepository;
+        this.facetIndex = facetIndex;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.tickets = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ticketTtlMinutes))
+                .build();
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(500_000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build(profileRepository::exists);
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Nhận 1 hồ sơ vào hàng đợi, trả về phiếu (kèm "duplicate": true nếu key đã được gửi trước đó).
+     *
+     * @throws IllegalArgumentException dữ liệu không hợp lệ (ứng viên/tin không tồn tại, key quá dài)
+     * @throws IllegalStateException    hàng đợi đang đầy
+     */
+    public Map<String, Object> submit(int userId, int ungVienId, int tinId, String ghiChu, String idempotencyKey) {
+        String key = idempotencyKey == null || idempotencyKey.isBlank()
+                ? UUID.randomUUID().toString() : idempotencyKey.trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key tối đa " + MAX_KEY_LENGTH + " ký tự");
+        }
+
+        String scopedKey = scope(userId, key);
+        Ticket existing = tickets.getIfPresent(scopedKey);
+        if (existing != null) return replay(existing, ungVienId, tinId);
+
+        if (!Boolean.TRUE.equals(profiles.get(ungVienId))) {
+            throw new IllegalArgumentException("Không tìm thấy hồ sơ ứng viên.");
+        }
+        if (!isJobActive(tinId)) {
+            throw new IllegalArgumentException("Không tìm thấy tin tuyển dụng hợp lệ.");
+        }
+
+        Ticket ticket = new Ticket(key, ungVienId, tinId, ghiChu);
+        existing = tickets.asMap().putIfAbsent(scopedKey, ticket);
+        if (existing != null) return replay(existing, ungVienId, tinId);
+
+        if (!queue.offer(ticket)) {
+            tickets.invalidate(scopedKey);
+            rejectedFull.increment();
+            throw new IllegalStateException("Hệ thống đang nhận quá nhiều hồ sơ, vui lòng thử lại sau.");
+        }
+        accepted.increment();
+        return ticket.toMap();
+    }
+
+    /**
+     * Trạng thái phiếu theo key của chính user {@code userId} (null nếu không có, đã hết hạn lưu
+     * hoặc key thuộc user khác).
+     */
+    public Map<String, Object> status(int userId, String key) {
+        Ticket ticket = tickets.getIfPresent(scope(userId, key.trim()));
+        return ticket == null ? null : ticket.toMap();
+    }
+
+    private static String scope(int userId, String key) {
+        return userId + ":" + key;
+    }
+
+    // Tin đang hiển thị: hỏi index trong bộ nhớ, index chưa sẵn sàng thì hỏi DB
+    private boolean isJobActive(int tinId) {
+        if (facetIndex.isReady()) return facetIndex.isActive(tinId);
+        Map<String, Object> row = jobRepository.findSnapshot(tinId);
+        return row != null && JobRepository.STATUS_ACTIVE.equals(row.get("TrangThai"));
+    }
+
+    // Cùng key nhưng khác ứng viên/tin là lỗi của client, không trả phiếu của yêu cầu khác
+    private Map<String, Object> replay(Ticket ticket, int ungVienId, int tinId) {
+        if (ticket.ungVienId != ungVienId || ticket.tinId != tinId) {
+            throw new IllegalArgumentException("Idempotency-Key đã được dùng cho yêu cầu khác");
+        }
+        replayed.increment();
+        Map<String, Object> m = ticket.toMap();
+        m.put("duplicate", true);
+        return m;
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            List<Ticket> batch = new ArrayList<>(BATCH_SIZE);
+            List<Ticket> retry = new ArrayList<>();
+            while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+                write(batch, retry);
+                batch.clear();
+            }
+            // Lô lỗi quay lại hàng đợi, chờ chu kỳ sau mới ghi lại
+            for (Ticket t : retry) {
+                if (!queue.offer(t)) fail(t, "Không ghi được hồ sơ, vui lòng nộp lại.");
+            }
+        }
+    }
+
+    // Lỗi lọt ra ngoài sẽ làm executor dừng lịch lặp: ghi nhận rồi chờ chu kỳ sau
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            System.err.println("❌ Ghi hàng đợi hồ sơ ứng tuyển thất bại: " + e.getMessage());
+        }
+    }
+
+    // Tắt ứng dụng: dừng luồng ghi rồi ghi nốt các phiếu còn trong hàng đợi
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void write(List<Ticket> batch, List<Ticket> retry) {
+        long start = System.currentTimeMillis();
+        List<Map<String, Object>> items = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Ticket t = batch.get(i);
+            Map<String, Object> item = new HashMap<>();
+            item.put("STT", i);
+            item.put("UngVienID", t.ungVienId);
+            item.put("TinID", t.tinId);
+            item.put("GhiChu", t.ghiChu);
+            items.add(item);
+        }
+
+        try {
+            List<Map<String, Object>> rows = applicationRepository.insertBatch(items);
+            Map<Integer, Map<String, Object>> byStt = new HashMap<>();
+            for (Map<String, Object> row : rows) byStt.put(((Number) row.get("STT")).intValue(), row);
+
+            for (int i = 0; i < batch.size(); i++) {
+                Ticket t = batch.get(i);
+                Map<String, Object> row = byStt.get(i);
+                if (row == null) {
+                    fail(t, "Tin không còn hiển thị hoặc hồ sơ ứng viên không tồn tại.");
+                } else {
+                    t.ungTuyenId = ((Number) row.get("UngTuyenID")).intValue();
+                    t.ngayUngTuyen = row.get("NgayUngTuyen");
+                    t.trangThai = row.get("TrangThai");
+                    t.status = STATUS_SAVED;
+                    saved.increment();
+                }
+            }
+            lastError = null;
+        } catch (Exception e) {
+            // Cả lô nằm trong 1 câu lệnh: lỗi nghĩa là chưa dòng nào được ghi, thử lại an toàn
+            lastError = e.getMessage();
+            System.err.println("❌ Ghi lô hồ sơ ứng tuyển thất bại: " + e.getMessage());
+            for (Ticket t : batch) {
+                if (++t.attempts >= MAX_ATTEMPTS) {
+                    fail(t, "Không ghi được hồ sơ, vui lòng nộp lại.");
+                } else {
+                    retry.add(t);
+                }
+            }
+        }
+
+        batches.increment();
+        lastBatchSize = batch.size();
+        lastBatchMillis = System.currentTimeMillis() - start;
+    }
+
+    private void fail(Ticket ticket, String error) {
+        ticket.error = error;
+        ticket.status = STATUS_FAILED;
+        failed.increment();
+    }
+
+    @EventListener
+    public void onProfileChanged(ProfileChangedEvent event) {
+        profiles.invalidate(event.ungVienId());
+    }
+
+    @Override
+    public String metricsName() {
+        return "application-intake";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("queueSize", queue.size());
+        m.put("queueCapacity", capacity);
+        m.put("accepted", accepted.sum());
+        m.put("replayed", replayed.sum());
+        m.put("rejectedQueueFull", rejectedFull.sum());
+        m.put("saved", saved.sum());
+        m.put("failed", failed.sum());
+        m.put("batches", batches.sum());
+        m.put("lastBatchSize", lastBatchSize);
+        m.put("lastBatchMillis", lastBatchMillis);
+        m.put("lastError", lastError);
+        m.put("tickets", tickets.estimatedSize());
+        return m;
+    }
+}
@@ -1,8 +1,13 @@
 package com.job.backend.service;
 
 import com.job.backend.repository.ApplicationRepository;
+import com.job.backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -11,6 +16,10 @@ import java.util.Map;
 public class ApplicationService {
 
     private final ApplicationRepository repository;
+    private final ApplicantMatchService matchService;
+
+    // Số dòng tối đa mỗi lần cập nhật hàng loạt
+    public static final int BULK_LIMIT = 1000;
 
     // Ứng viên nộp hồ sơ
     public Map<String, Object> create(int ungVienID, int tinID, String ghiChu) {
@@ -22,6 +31,42 @@ public class ApplicationService {
         return repository.listByJob(tinID);
     }
 
+    /**
+     * Danh sách ứng viên rút gọn theo tin, phân trang keyset (mới nộp trước).
+     * Trả kèm nextCursor (null khi đã hết); cursor rỗng = trang đầu.
+     *
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public Map<String, Object> getSummaryByJob(int tinID, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Map<String, Object>> rows = repository.listSummaryByJob(tinID, after, size + 1);
+
+        List<Map<String, Object>> items = rows.size() > size ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (rows.size() > size) {
+            Map<String, Object> last = items.get(items.size() - 1);
+            nextCursor = KeysetCursor.encode((Timestamp) last.get("NgayUngTuyen"), ((Number) last.get("UngTuyenID")).intValue());
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("size", size);
+        resp.put("items", items);
+        resp.put("count", items.size());
+        resp.put("nextCursor", nextCursor);
+        return resp;
+    }
+
+    // Chi tiết đầy đủ 1 hồ sơ ứng tuyển khi mở 1 dòng (null nếu không có)
+    public Map<String, Object> getDetail(int ungTuyenID) {
+        List<Map<String, Object>> rows = repository.findByIds(List.of(ungTuyenID));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Danh sách ứng viên theo tin, xếp theo điểm phù hợp với yêu cầu (null nếu không có tin)
+    public Map<String, Object> getRankedByJob(int tinID, int page, int size) {
+        return matchService.rankByJob(tinID, page, size);
+    }
+
     // Danh sách tin đã ứng tuyển theo user
     public List<Map<String, Object>> getByUser(int userID) {
         return repository.listByUser(userID);
@@ -31,4 +76,61 @@ public class ApplicationService {
     public Map<String, Object> updateStatus(int ungTuyenID, String trangThai, String ghiChu) {
         return repository.updateStatus(ungTuyenID, trangThai, ghiChu);
     }
+
+    /**
+     * Cập nhật trạng thái hàng loạt: các dòng hợp lệ đi chung 1 lần gọi SP (1 giao dịch),
+     * dòng thiếu UngTuyenID/TrangThai bị loại ngay. Trả về kết quả từng dòng theo thứ tự gửi lên.
+     * items: {UngTuyenID, TrangThai, GhiChu}
+     */
+    public Map<String, Object> bulkUpdateStatus(List<Map<String, Object>> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách cập nhật trống");
+        }
+        if (items.size() > BULK_LIMIT) {
+            throw new IllegalArgumentException("Tối đa " + BULK_LIMIT + " hồ sơ mỗi lần cập nhật");
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        List<Map<String, Object>> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> item = new LinkedHashMap<>(items.get(i));
+            item.put("STT", i + 1);
+            Object id = item.get("UngTuyenID");
+            Object trangThai = item.get("TrangThai");
+            if (!(id instanceof Number n) || n.intValue() <= 0 || trangThai == null || trangThai.toString().isBlank()) {
+                item.put("ThanhCong", false);
+                item.put("Loi", "Thiếu UngTuyenID hoặc TrangThai");
+            } else {
+                valid.add(item);
+            }
+            results.add(item);
+        }
+
+        if (!valid.isEmpty()) {
+            Map<Integer, Map<String, Object>> outcomes = new LinkedHashMap<>();
+            for (Map<String, Object> row : repository.bulkUpdateStatus(valid)) {
+                outcomes.put(((Number) row.get("STT")).intValue(), row);
+            }
+            for (Map<String, Object> item : valid) {
+                Map<String, Object> row = outcomes.get((Integer) item.get("STT"));
+                boolean ok = row != null && Boolean.TRUE.equals(row.get("ThanhCong"));
+                item.put("ThanhCong", ok);
+                if (ok) {
+                    item.put("TrangThaiCu", row.get("TrangThaiCu"));
+                    item.put("TrangThai", row.get("TrangThai"));
+                    item.put("GhiChu", row.get("GhiChu"));
+                } else {
+                    item.put("Loi", "Không tìm thấy hồ sơ ứng tuyển.");
+                }
+            }
+        }
+
+        long updated = results.stream().filter(r -> Boolean.TRUE.equals(r.get("ThanhCong"))).count();
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("total", results.size());
+        resp.put("updated", updated);
+        resp.put("failed", results.size() - updated);
+        resp.put("items", results);
+        return resp;
+    }
 }
@@ -0,0 +1,52 @@
+package com.job.backend.service;
+
+import com.job.backend.repository.ChangeLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class ChangeLogService {
+
+    private final ChangeLogRepository repository;
+
+    // Cửa sổ trễ commit: thay đổi mới hơn chưa được trả (xem ChangeLogRepository)
+    @Value("${app.changes.lag-seconds:5}")
+    private int lagSeconds;
+
+    /**
+     * Các thay đổi trạng thái sau {@code since} (theo ứng viên hoặc theo nhà tuyển dụng).
+     * Client lưu lại nextSince rồi gửi lại ở lần gọi sau; hasMore = true thì gọi tiếp ngay.
+     * Thay đổi chỉ xuất hiện sau app.changes.lag-seconds giây.
+     *
+     * @throws IllegalArgumentException nếu không truyền đúng 1 trong userId / ntdId
+     */
+    public Map<String, Object> getChanges(Integer userId, Integer ntdId, long since, int limit) {
+        if ((userId == null) == (ntdId == null)) {
+            throw new IllegalArgumentException("Cần truyền đúng 1 trong 2 tham số userId hoặc ntdId");
+        }
+        long from = Math.max(since, 0);
+        // Lấy dư 1 dòng để biết còn thay đổi phía sau hay không
+        List<Map<String, Object>> rows = userId != null
+                ? repository.listForCandidate(userId, from, lagSeconds, limit + 1)
+                : repository.listForEmployer(ntdId, from, lagSeconds, limit + 1);
+
+        boolean hasMore = rows.size() > limit;
+        List<Map<String, Object>> changes = hasMore ? rows.subList(0, limit) : rows;
+        long nextSince = changes.isEmpty() ? from
+                : ((Number) changes.get(changes.size() - 1).get("SoThuTu")).longValue();
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("since", from);
+        resp.put("nextSince", nextSince);
+        resp.put("hasMore", hasMore);
+        resp.put("count", changes.size());
+        resp.put("changes", changes);
+        return resp;
+    }
+}
@@ -0,0 +1,308 @@
+package com.job.backend.service;
+
+import com.job.backend.repository.JobRepository;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Phát hiện tin gần trùng của cùng nhà tuyển dụng khi đăng tin (POST /api/jobs).
+ * - Nội dung tin (TieuDe + MoTa + YeuCau, đã bỏ dấu) tách thành các cụm 3 từ liền nhau (shingle),
+ *   rút gọn thành chữ ký MinHash {@value #HASHES} số; tỉ lệ vị trí trùng nhau xấp xỉ độ giống Jaccard.
+ * - LSH: chữ ký chia {@value #BANDS} dải, mỗi dải băm vào 1 bucket theo NTDID; chỉ các tin chung
+ *   ít nhất 1 bucket mới được so chữ ký, nên kiểm tra không phụ thuộc số tin của công ty và không đụng DB.
+ * - Nạp lúc khởi động: chữ ký được tính song song rồi mới đưa vào bucket; sửa/xóa tin cập nhật
+ *   theo JobChangedEvent như các index khác. Chỉ so với các tin đang hiển thị.
+ * app.duplicate.mode: off (không kiểm tra), flag (vẫn tạo, báo kèm tin trùng), reject (từ chối tạo).
+ */
+@Component
+public class DuplicateJobDetector extends AbstractJobIndex implements MetricsSource {
+
+    public static final String MODE_OFF = "off";
+    public static final String MODE_REJECT = "reject";
+
+    private static final int SHINGLE_WORDS = 3;
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    private static final int RECENT_LIMIT = 50;
+
+    // Hạt giống cố định cho từng hàm băm, chữ ký không đổi giữa các lần khởi động
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            SEEDS[i] = mix(seed);
+        }
+    }
+
+    /**
+     * Tin đang hiển thị gần trùng nhất với tin mới và độ giống ước lượng (0..1).
+     */
+    public record Match(int tinId, double similarity) {
+    }
+
+    private record Doc(int ntdId, int[] signature) {
+    }
+
+    private final String mode;
+    private final double threshold;
+
+    private final Map<Integer, Doc> docs = new HashMap<>();
+    // khóa bucket (NTDID + dải + băm dải) -> các TinID; va chạm khóa giữa công ty được loại khi so NTDID
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+    // Trong lúc nạp chỉ gom dòng lại, loaded() mới tính chữ ký song song
+    private List<Map<String, Object>> loading = new ArrayList<>();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder checkNanos = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder flagged = new LongAdder();
+    private final List<Map<String, Object>> recent = new ArrayList<>();
+
+    public DuplicateJobDetector(JobRepository jobRepository,
+                                @Value("${app.duplicate.mode:flag}") String mode,
+                                @Value("${app.duplicate.threshold:0.8}") double threshold) {
+        super(jobRepository);
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    public boolean isRejecting() {
+        return MODE_REJECT.equals(mode);
+    }
+
+    /**
+     * Tìm tin đang hiển thị của cùng NTDID giống tin sắp tạo từ ngưỡng app.duplicate.threshold trở lên.
+     * Trả về null nếu không có, chế độ off, index chưa sẵn sàng hoặc tin không có nội dung.
+     */
+    public Match findDuplicate(Map<String, Object> job) {
+        Integer ntdId = toInt(job.get("NTDID"));
+        if (MODE_OFF.equals(mode) || ntdId == null || !isReady()) return null;
+
+        long start = System.nanoTime();
+        int[] signature = signature(job);
+        if (signature == null) return null;
+
+        Match best = null;
+        int compared = 0;
+        lock.readLock().lock();
+        try {
+            Set<Integer> seen = new HashSet<>();
+            for (int band = 0; band < BANDS; band++) {
+                List<Integer> bucket = buckets.get(bucketKey(ntdId, band, signature));
+                if (bucket == null) continue;
+                for (int tinId : bucket) {
+                    if (!seen.add(tinId)) continue;
+                    Doc doc = docs.get(tinId);
+                    if (doc == null || doc.ntdId() != ntdId) continue;
+                    compared++;
+                    double similarity = similarity(signature, doc.signature());
+                    if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                        best = new Match(tinId, similarity);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        checks.increment();
+        candidates.add(compared);
+        checkNanos.add(System.nanoTime() - start);
+        if (best != null) record(ntdId, best);
+        return best;
+    }
+
+    @Override
+    protected String name() {
+        return "DuplicateJobDetector";
+    }
+
+    @Override
+    protected void clear() {
+        docs.clear();
+        buckets.clear();
+        loading = new ArrayList<>();
+    }
+
+    @Override
+    protected void put(int tinId, Map<String, Object> row) {
+        if (loading != null) {
+            loading.add(row);
+            return;
+        }
+        int[] signature = signature(row);
+        if (signature != null) index(tinId, ((Number) row.get("NTDID")).intValue(), signature);
+    }
+
+    @Override
+    protected void remove(int tinId) {
+        Doc doc = docs.remove(tinId);
+        if (doc == null) return;
+        for (int band = 0; band < BANDS; band++) {
+            long key = bucketKey(doc.ntdId(), band, doc.signature());
+            List<Integer> bucket = buckets.get(key);
+            if (bucket == null) continue;
+            bucket.remove(Integer.valueOf(tinId));
+            if (bucket.isEmpty()) buckets.remove(key);
+        }
+    }
+
+    // Tính chữ ký của mọi tin đã gom song song, rồi đưa vào bucket trên luồng hiện tại
+    @Override
+    protected void loaded() {
+        List<Map<String, Object>> rows = loading;
+        int[][] signatures = new int[rows.size()][];
+        IntStream.range(0, rows.size()).parallel().forEach(i -> signatures[i] = signature(rows.get(i)));
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < rows.size(); i++) {
+                if (signatures[i] == null) continue;
+                Map<String, Object> row = rows.get(i);
+                index(((Number) row.get("TinID")).intValue(), ((Number) row.get("NTDID")).intValue(), signatures[i]);
+            }
+            loading = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(int tinId, int ntdId, int[] signature) {
+        docs.put(tinId, new Doc(ntdId, signature));
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(ntdId, band, signature), k -> new ArrayList<>(1)).add(tinId);
+        }
+    }
+
+    /**
+     * Chữ ký MinHash của tin: với mỗi hàm băm, giá trị nhỏ nhất trên tập shingle (null nếu tin rỗng).
+     */
+    static int[] signature(Map<String, Object> row) {
+        List<String> tokens = new ArrayList<>();
+        for (String column : new String[]{"TieuDe", "MoTa", "YeuCau"}) {
+            Object value = row.get(column);
+            if (value != null) tokens.addAll(TextNormalizer.tokenize(value.toString()));
+        }
+        if (tokens.isEmpty()) return null;
+
+        Set<Long> shingles = new HashSet<>();
+        int width = Math.min(SHINGLE_WORDS, tokens.size());
+        for (int i = 0; i + width <= tokens.size(); i++) {
+            shingles.add(hash(tokens.subList(i, i + width)));
+        }
+
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int h = 0; h < HASHES; h++) {
+                int value = (int) (mix(shingle ^ SEEDS[h]) >>> 33);
+                if (value < signature[h]) signature[h] = value;
+            }
+        }
+        return signature;
+    }
+
+    static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) same++;
+        }
+        return (double) same / HASHES;
+    }
+
+    private static long bucketKey(int ntdId, int band, int[] signature) {
+        long h = ((long) ntdId << 8) | band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            h = mix(h * 31 + signature[i]);
+        }
+        return h;
+    }
+
+    // FNV-1a 64 bit trên các từ của shingle
+    private static long hash(List<String> words) {
+        long h = 0xcbf29ce484222325L;
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                h ^= word.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= ' ';
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // Bước trộn của SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Integer toInt(Object value) {
+        if (value instanceof Number n) return n.intValue();
+        try {
+            return value == null ? null : Integer.valueOf(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void record(int ntdId, Match match) {
+        flagged.increment();
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("NTDID", ntdId);
+        item.put("TinID", match.tinId());
+        item.put("similarity", match.similarity());
+        item.put("at", LocalDateTime.now());
+        synchronized (recent) {
+            if (recent.size() == RECENT_LIMIT) recent.remove(0);
+            recent.add(item);
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "duplicate-jobs";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long count = checks.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("mode", mode);
+        m.put("threshold", threshold);
+        m.put("ready", isReady());
+        lock.readLock().lock();
+        try {
+            m.put("indexedJobs", docs.size());
+            m.put("buckets", buckets.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        m.put("checks", count);
+        m.put("duplicatesFound", flagged.sum());
+        m.put("avgCandidates", count == 0 ? 0 : (double) candidates.sum() / count);
+        m.put("avgCheckMicros", count == 0 ? 0 : checkNanos.sum() / count / 1000);
+        synchronized (recent) {
+            m.put("recent", new ArrayList<>(recent));
+        }
+        return m;
+    }
+}
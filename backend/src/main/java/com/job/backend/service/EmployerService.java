@@ -1,7 +1,11 @@
 package com.job.backend.service;
 
+import com.job.backend.event.EmployerChangedEvent;
+import com.job.backend.event.JobChangedEvent;
 import com.job.backend.repository.EmployerRepository;
+import com.job.backend.repository.JobRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,6 +16,8 @@ import java.util.Map;
 public class EmployerService {
 
     private final EmployerRepository repository;
+    private final JobRepository jobRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Map<String, Object>> getAllEmployers() {
         return repository.findAll();
@@ -32,6 +38,7 @@ public class EmployerService {
 
     public String updateEmployer(int ntdId, Map<String, Object> data) {
         int result = repository.updateEmployer(ntdId, data);
+        if (result > 0) eventPublisher.publishEvent(new EmployerChangedEvent(ntdId));
         return (result > 0)
                 ? "Đã cập nhật hồ sơ công ty #" + ntdId
                 : "Không tìm thấy công ty #" + ntdId;
@@ -39,13 +46,24 @@ public class EmployerService {
 
     public String updateLogo(int ntdId, String logoUrl) {
         int result = repository.updateLogo(ntdId, logoUrl);
+        if (result > 0) eventPublisher.publishEvent(new EmployerChangedEvent(ntdId));
         return (result > 0)
                 ? "Đã cập nhật logo thành công."
                 : "Không tìm thấy công ty #" + ntdId;
     }
 
     public String deleteEmployer(int ntdId) {
+        // Xóa công ty sẽ xóa dây chuyền các tin của công ty (ON DELETE CASCADE),
+        // nên chụp lại các tin trước để báo cho index/cache gỡ bỏ.
+        List<Map<String, Object>> jobs = jobRepository.findByEmployer(ntdId);
         int result = repository.deleteEmployer(ntdId);
+        if (result > 0) {
+            for (Map<String, Object> job : jobs) {
+                int tinId = ((Number) job.get("TinID")).intValue();
+                eventPublisher.publishEvent(new JobChangedEvent(JobChangedEvent.Kind.DELETED, tinId, null));
+            }
+            eventPublisher.publishEvent(new EmployerChangedEvent(ntdId));
+        }
         return (result > 0)
                 ? "Đã xóa công ty #" + ntdId
                 : "Không tìm thấy công ty #" + ntdId;
@@ -0,0 +1,404 @@
+package com.job.backend.service;
+
+import com.job.backend.repository.InterviewRepository;
+import com.job.backend.util.IntervalTree;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lịch phỏng vấn trong bộ nhớ: mỗi (NTDID, người phỏng vấn) và mỗi NTDID có 1 cây khoảng
+ * chứa các buổi [NgayHen, NgayHen + ThoiLuongPhut) từ hôm qua trở đi.
+ * - Tạo lịch hẹn: giữ chỗ trên cây của người phỏng vấn trước khi ghi DB, trùng giờ thì từ chối
+ *   (giữ chỗ và kiểm tra cùng dưới write lock nên 2 request song song không đặt trùng được).
+ * - Tìm giờ rảnh: chỉ duyệt các buổi giao với khoảng cần tìm, O(log n + k), không truy vấn DB.
+ * - Lịch hẹn bị từ chối/hủy (sp_Interview_Confirm) được gỡ khỏi lịch; buổi đã qua được dọn hằng ngày.
+ * Trong lúc nạp lúc khởi động (hoặc nạp lỗi, thử lại sau app.index.retry-ms), trùng giờ được kiểm tra thẳng
+ * trên DB (các buổi của cùng NTDID quanh giờ hẹn) cộng các chỗ đang giữ chưa ghi xong, vẫn dưới write lock.
+ * Các buổi đặt/hủy trong lúc đó được xếp hàng và áp dụng sau khi nạp xong, để buổi commit sau khi đã đọc
+ * ảnh chụp DB vẫn có trên lịch; mỗi lượt nạp bỏ khỏi hàng các buổi đã commit (ảnh chụp mới đã có).
+ */
+@Component
+public class InterviewCalendar implements MetricsSource {
+
+    public static final int DEFAULT_MINUTES = 60;
+
+    private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd['T'][ ]HH:mm[:ss]");
+    // Giữ lại buổi của hôm qua để còn kiểm tra được các buổi kéo dài qua nửa đêm
+    private static final int KEEP_DAYS = 1;
+
+    /**
+     * Một buổi đã đặt; lichHenId null khi đang giữ chỗ, chưa ghi xong DB.
+     */
+    public static final class Booking {
+        final long key;
+        final int ntdId;
+        final String interviewer;
+        final long start;
+        final long end;
+        volatile Integer lichHenId;
+
+        Booking(long key, int ntdId, String interviewer, long start, long end) {
+            this.key = key;
+            this.ntdId = ntdId;
+            this.interviewer = interviewer;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Integer lichHenId() {
+            return lichHenId;
+        }
+    }
+
+    /**
+     * Kết quả giữ chỗ: booking (thành công) hoặc conflict (buổi bị trùng).
+     */
+    public record Reservation(Booking booking, Booking conflict) {
+    }
+
+    private final InterviewRepository repository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Map<String, IntervalTree<Booking>>> byInterviewer = new HashMap<>();
+    private final Map<Integer, IntervalTree<Booking>> byEmployer = new HashMap<>();
+    private final Map<Integer, Booking> byLichHen = new HashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean ready;
+    // Chỉ dùng khi chưa ready: buổi giữ chỗ và LichHenID bị từ chối/hủy trong lúc nạp
+    private final List<Booking> reservedWhileLoading = new ArrayList<>();
+    private final Set<Integer> releasedWhileLoading = new HashSet<>();
+
+    private final LongAdder conflicts = new LongAdder();
+    private volatile long lastLoadMillis;
+
+    public InterviewCalendar(InterviewRepository repository) {
+        this.repository = repository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Nạp lỗi (DB chưa sẵn sàng...): thử lại, các buổi đặt trong lúc chờ vẫn được xếp hàng
+    @Scheduled(initialDelayString = "${app.index.retry-ms:60000}", fixedDelayString = "${app.index.retry-ms:60000}")
+    public void retryFailedLoad() {
+        if (!ready) load();
+    }
+
+    // synchronized: lượt thử lại không chạy chồng lượt nạp lúc khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (ready) return;
+        long begin = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            // Đã commit (đã có LichHenID) thì ảnh chụp sắp đọc đã chứa: chỉ giữ lại các chỗ chưa ghi xong
+            reservedWhileLoading.removeIf(booking -> booking.lichHenId != null);
+            releasedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try {
+            repository.streamScheduledSince(LocalDateTime.now().minusDays(KEEP_DAYS), rows::add);
+        } catch (Exception e) {
+            System.err.println("❌ InterviewCalendar: không nạp được lịch phỏng vấn: " + e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            byInterviewer.clear();
+            byEmployer.clear();
+            byLichHen.clear();
+            for (Map<String, Object> row : rows) {
+                if (!(row.get("NgayHen") instanceof Timestamp ts) || isReleased(row.get("TrangThai"))) continue;
+                int lichHenId = ((Number) row.get("LichHenID")).intValue();
+                if (releasedWhileLoading.contains(lichHenId)) continue;
+                Object minutes = row.get("ThoiLuongPhut");
+                long start = toMillis(ts.toLocalDateTime());
+                long end = start + (minutes == null ? DEFAULT_MINUTES : ((Number) minutes).intValue()) * 60_000L;
+                Booking booking = add(((Number) row.get("NTDID")).intValue(), interviewerKey(row.get("NguoiPhongVan")), start, end);
+                booking.lichHenId = lichHenId;
+                byLichHen.put(lichHenId, booking);
+            }
+            // Buổi đặt trong lúc nạp: đã có trong ảnh chụp (commit trước khi đọc) thì bỏ, chưa có thì thêm
+            for (Booking booking : reservedWhileLoading) {
+                Integer lichHenId = booking.lichHenId;
+                if (lichHenId != null && byLichHen.containsKey(lichHenId)) continue;
+                insert(booking);
+                if (lichHenId != null) byLichHen.put(lichHenId, booking);
+            }
+            reservedWhileLoading.clear();
+            releasedWhileLoading.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastLoadMillis = System.currentTimeMillis() - begin;
+        System.out.println("✅ InterviewCalendar: đã nạp " + byLichHen.size() + " lịch hẹn trong " + lastLoadMillis + " ms");
+    }
+
+    /**
+     * Giữ chỗ cho người phỏng vấn trong [start, start + minutes). Không có tên người phỏng vấn
+     * thì không kiểm tra trùng (chỉ ghi vào lịch chung của công ty).
+     */
+    public Reservation reserve(int ntdId, String interviewer, LocalDateTime start, int minutes) {
+        String key = interviewerKey(interviewer);
+        long from = toMillis(start);
+        long to = from + minutes * 60_000L;
+
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                // Lịch chưa nạp: kiểm tra trùng trên DB, ghi nhận chỗ giữ để thêm vào lịch khi nạp xong
+                Booking clash = key.isEmpty() ? null : findClashWhileLoading(ntdId, key, from, to, start);
+                if (clash != null) {
+                    conflicts.increment();
+                    return new Reservation(null, clash);
+                }
+                Booking booking = new Booking(sequence.incrementAndGet(), ntdId, key, from, to);
+                reservedWhileLoading.add(booking);
+                return new Reservation(booking, null);
+            }
+            if (!key.isEmpty()) {
+                IntervalTree<Booking> tree = byInterviewer.getOrDefault(ntdId, Map.of()).get(key);
+                IntervalTree.Interval<Booking> clash = tree == null ? null : tree.firstOverlap(from, to);
+                if (clash != null) {
+                    conflicts.increment();
+                    return new Reservation(null, clash.value());
+                }
+            }
+            return new Reservation(add(ntdId, key, from, to), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Gọi dưới write lock khi chưa ready: buổi đang giữ chưa ghi xong, rồi các buổi trên DB có thể giao [from, to)
+    private Booking findClashWhileLoading(int ntdId, String key, long from, long to, LocalDateTime start) {
+        for (Booking booking : reservedWhileLoading) {
+            if (booking.ntdId == ntdId && booking.interviewer.equals(key) && booking.start < to && booking.end > from) {
+                return booking;
+            }
+        }
+        List<Map<String, Object>> rows = repository.listScheduledForEmployer(ntdId,
+                start.minusMinutes(InterviewService.MAX_MINUTES), start.plusNanos((to - from) * 1_000_000L));
+        for (Map<String, Object> row : rows) {
+            if (!(row.get("NgayHen") instanceof Timestamp ts) || isReleased(row.get("TrangThai"))) continue;
+            if (!key.equals(interviewerKey(row.get("NguoiPhongVan")))) continue;
+            Object minutes = row.get("ThoiLuongPhut");
+            long bookedFrom = toMillis(ts.toLocalDateTime());
+            long bookedTo = bookedFrom + (minutes == null ? DEFAULT_MINUTES : ((Number) minutes).intValue()) * 60_000L;
+            if (bookedFrom < to && bookedTo > from) {
+                Booking clash = new Booking(sequence.incrementAndGet(), ntdId, key, bookedFrom, bookedTo);
+                clash.lichHenId = ((Number) row.get("LichHenID")).intValue();
+                return clash;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lịch hẹn đã ghi DB: gắn LichHenID cho chỗ đã giữ.
+     */
+    public void confirm(Booking booking, int lichHenId) {
+        if (booking == null) return;
+        lock.writeLock().lock();
+        try {
+            booking.lichHenId = lichHenId;
+            if (!ready) return;
+            // Lịch vừa nạp đã đọc được buổi này từ DB trước khi kịp gắn LichHenID: giữ 1 bản
+            Booking loaded = byLichHen.get(lichHenId);
+            if (loaded != null && loaded != booking) {
+                remove(booking);
+                return;
+            }
+            byLichHen.put(lichHenId, booking);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bỏ chỗ đã giữ (ghi DB thất bại).
+     */
+    public void release(Booking booking) {
+        if (booking == null) return;
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                remove(booking);
+            } else {
+                reservedWhileLoading.remove(booking);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Trạng thái lịch hẹn đổi: từ chối/hủy thì trả lại giờ cho người phỏng vấn.
+     */
+    public void onStatusChanged(int lichHenId, String trangThai) {
+        if (!isReleased(trangThai)) return;
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                releasedWhileLoading.add(lichHenId);
+                reservedWhileLoading.removeIf(b -> b.lichHenId != null && b.lichHenId == lichHenId);
+                return;
+            }
+            Booking booking = byLichHen.remove(lichHenId);
+            if (booking != null) remove(booking);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Các khoảng rảnh dài ít nhất {@code minutes} phút trong [from, to) của người phỏng vấn
+     * (bỏ trống = không có buổi nào của công ty), mỗi phần tử {start, end}.
+     */
+    public List<Map<String, Object>> freeSlots(int ntdId, String interviewer, LocalDateTime from, LocalDateTime to, int minutes) {
+        String key = interviewerKey(interviewer);
+        List<long[]> gaps;
+        lock.readLock().lock();
+        try {
+            IntervalTree<Booking> tree = key.isEmpty()
+                    ? byEmployer.get(ntdId)
+                    : byInterviewer.getOrDefault(ntdId, Map.of()).get(key);
+            long start = toMillis(from);
+            long end = toMillis(to);
+            gaps = tree == null ? List.of(new long[]{start, end}) : tree.gaps(start, end, minutes * 60_000L);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map<String, Object>> slots = new ArrayList<>(gaps.size());
+        for (long[] gap : gaps) {
+            Map<String, Object> slot = new LinkedHashMap<>();
+            slot.put("start", toDateTime(gap[0]));
+            slot.put("end", toDateTime(gap[1]));
+            slots.add(slot);
+        }
+        return slots;
+    }
+
+    // Dọn các buổi đã qua để cây chỉ chứa lịch sắp tới
+    @Scheduled(cron = "0 15 4 * * *")
+    public void prune() {
+        long cutoff = toMillis(LocalDateTime.now().minusDays(KEEP_DAYS));
+        lock.writeLock().lock();
+        try {
+            byLichHen.values().removeIf(booking -> {
+                if (booking.end >= cutoff) return false;
+                remove(booking);
+                return true;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Chuỗi NgayHen người dùng nhập ("2025-12-01 09:00", "2025-12-01T09:00:00"), null nếu không đọc được.
+     */
+    public static LocalDateTime parse(Object value) {
+        if (value == null) return null;
+        try {
+            return LocalDateTime.parse(value.toString().trim(), INPUT_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Booking add(int ntdId, String interviewer, long start, long end) {
+        Booking booking = new Booking(sequence.incrementAndGet(), ntdId, interviewer, start, end);
+        insert(booking);
+        return booking;
+    }
+
+    private void insert(Booking booking) {
+        byEmployer.computeIfAbsent(booking.ntdId, id -> new IntervalTree<>())
+                .insert(booking.start, booking.end, booking.key, booking);
+        if (!booking.interviewer.isEmpty()) {
+            byInterviewer.computeIfAbsent(booking.ntdId, id -> new HashMap<>())
+                    .computeIfAbsent(booking.interviewer, k -> new IntervalTree<>())
+                    .insert(booking.start, booking.end, booking.key, booking);
+        }
+    }
+
+    private void remove(Booking booking) {
+        IntervalTree<Booking> employer = byEmployer.get(booking.ntdId);
+        if (employer != null) {
+            employer.remove(booking.start, booking.key);
+            if (employer.size() == 0) byEmployer.remove(booking.ntdId);
+        }
+        Map<String, IntervalTree<Booking>> interviewers = byInterviewer.get(booking.ntdId);
+        IntervalTree<Booking> tree = interviewers == null ? null : interviewers.get(booking.interviewer);
+        if (tree != null) {
+            tree.remove(booking.start, booking.key);
+            if (tree.size() == 0) interviewers.remove(booking.interviewer);
+            if (interviewers.isEmpty()) byInterviewer.remove(booking.ntdId);
+        }
+    }
+
+    // "Từ chối", "Đã hủy"... không còn chiếm giờ của người phỏng vấn
+    private static boolean isReleased(Object trangThai) {
+        String folded = TextNormalizer.fold(trangThai == null ? "" : trangThai.toString());
+        return folded.contains("tu choi") || folded.contains("huy");
+    }
+
+    private static String interviewerKey(Object name) {
+        return name == null ? "" : TextNormalizer.normalize(name.toString());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    public String metricsName() {
+        return "interview-calendar";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("ready", ready);
+        lock.readLock().lock();
+        try {
+            m.put("bookings", byLichHen.size());
+            m.put("employers", byEmployer.size());
+            m.put("interviewers", byInterviewer.values().stream().mapToInt(Map::size).sum());
+        } finally {
+            lock.readLock().unlock();
+        }
+        m.put("conflictsRejected", conflicts.sum());
+        m.put("lastLoadMillis", lastLoadMillis);
+        return m;
+    }
+}
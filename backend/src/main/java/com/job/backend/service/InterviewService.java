@@ -1,8 +1,17 @@
 package com.job.backend.service;
 
+import com.job.backend.event.NotificationCreatedEvent;
 import com.job.backend.repository.InterviewRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -11,22 +20,120 @@ import java.util.Map;
 public class InterviewService {
     private final InterviewRepository repository;
     private final MailService mailService;
+    private final InterviewCalendar calendar;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Số thư mời tối đa mỗi lần gửi hàng loạt
+    public static final int BULK_LIMIT = 200;
+    // Thời lượng tối đa 1 buổi phỏng vấn (phút)
+    public static final int MAX_MINUTES = 480;
+    // Khoảng tìm giờ rảnh tối đa (ngày)
+    public static final int MAX_SLOT_DAYS = 31;
+    private static final DateTimeFormatter NGAY_HEN_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
+    /**
+     * Tạo 1 thư mời phỏng vấn (null nếu không tìm thấy hồ sơ ứng tuyển).
+     *
+     * @throws IllegalArgumentException thời lượng hoặc ngày hẹn không hợp lệ
+     * @throws IllegalStateException     người phỏng vấn đã có lịch hẹn trùng giờ
+     */
     public Map<String, Object> createInterview(Map<String, Object> req) {
-        int ungTuyenID = (int) req.get("ungTuyenID");
-        String ngayHen = (String) req.get("ngayHen");
-        String diaDiem = (String) req.get("diaDiem");
-        String nguoiPhongVan = (String) req.get("nguoiPhongVan");
-        String noiDungThu = (String) req.get("noiDungThu");
-        String emailUngVien = (String) req.get("emailUngVien");
-
-        // 1️⃣ Ghi vào DB
-        Map<String, Object> saved = repository.createInterview(
-                ungTuyenID, ngayHen, diaDiem, nguoiPhongVan, noiDungThu, emailUngVien
-        );
-
-        // 2️⃣ Gửi email nếu có địa chỉ
-        if (emailUngVien != null && !emailUngVien.isBlank()) {
+        Integer[] conflicts = new Integer[1];
+        Map<String, Object> saved = createInterviews(List.of(req), conflicts).get(0);
+        if (conflicts[0] != null) {
+            throw new IllegalStateException(conflictMessage(conflicts[0]));
+        }
+        return saved;
+    }
+
+    /**
+     * Tạo nhiều thư mời trong 1 giao dịch (lịch hẹn + thông báo), email gửi sau ở luồng riêng.
+     * Trước khi ghi, mỗi dòng giữ chỗ trên lịch của người phỏng vấn (InterviewCalendar);
+     * dòng trùng giờ không được ghi và conflicts[i] = LichHenID bị trùng (-1 nếu buổi trùng chưa ghi xong).
+     * Kết quả cùng thứ tự với danh sách gửi lên; phần tử null = không tìm thấy hồ sơ ứng tuyển hoặc trùng lịch.
+     */
+    private List<Map<String, Object>> createInterviews(List<Map<String, Object>> reqs, Integer[] conflicts) {
+        List<Map<String, Object>> invites = new ArrayList<>(reqs.size());
+        List<Integer> ungTuyenIds = new ArrayList<>(reqs.size());
+        for (Map<String, Object> req : reqs) {
+            Object minutes = req.get("thoiLuongPhut");
+            int thoiLuongPhut = minutes == null ? InterviewCalendar.DEFAULT_MINUTES : ((Number) minutes).intValue();
+            if (thoiLuongPhut < 1 || thoiLuongPhut > MAX_MINUTES) {
+                throw new IllegalArgumentException("Thời lượng phỏng vấn phải từ 1 đến " + MAX_MINUTES + " phút");
+            }
+            // Ngày hẹn phải đọc được: DB lưu đúng thời điểm đã kiểm tra trùng trên lịch (ISO, không phụ thuộc DATEFORMAT)
+            Object ngayHen = req.get("ngayHen");
+            LocalDateTime start = null;
+            if (ngayHen != null && !ngayHen.toString().isBlank()) {
+                start = InterviewCalendar.parse(ngayHen);
+                if (start == null) {
+                    throw new IllegalArgumentException("Ngày hẹn không hợp lệ (yyyy-MM-dd HH:mm): " + ngayHen);
+                }
+            }
+            Map<String, Object> invite = new HashMap<>();
+            invite.put("UngTuyenID", req.get("ungTuyenID"));
+            invite.put("NgayHen", start == null ? null : start.format(NGAY_HEN_FORMAT));
+            invite.put("ThoiLuongPhut", thoiLuongPhut);
+            invite.put("DiaDiem", req.get("diaDiem"));
+            invite.put("NguoiPhongVan", req.get("nguoiPhongVan"));
+            invite.put("NoiDungThu", req.get("noiDungThu"));
+            invite.put("EmailUngVien", req.get("emailUngVien"));
+            invites.add(invite);
+            if (req.get("ungTuyenID") instanceof Number n) ungTuyenIds.add(n.intValue());
+        }
+
+        // 1️⃣ Giữ chỗ trên lịch người phỏng vấn; dòng trùng giờ bị loại khỏi lô ghi
+        InterviewCalendar.Booking[] bookings = new InterviewCalendar.Booking[invites.size()];
+        List<Integer> accepted = new ArrayList<>(invites.size());
+        Map<Integer, Integer> employers = repository.findEmployerIds(ungTuyenIds);
+        for (int i = 0; i < invites.size(); i++) {
+            Map<String, Object> invite = invites.get(i);
+            Integer ntdId = invite.get("UngTuyenID") instanceof Number n ? employers.get(n.intValue()) : null;
+            LocalDateTime start = InterviewCalendar.parse(invite.get("NgayHen"));
+            if (ntdId != null && start != null) {
+                InterviewCalendar.Reservation reservation = calendar.reserve(ntdId,
+                        (String) invite.get("NguoiPhongVan"), start, (Integer) invite.get("ThoiLuongPhut"));
+                if (reservation.conflict() != null) {
+                    Integer clash = reservation.conflict().lichHenId();
+                    conflicts[i] = clash == null ? -1 : clash;
+                    continue;
+                }
+                bookings[i] = reservation.booking();
+            }
+            accepted.add(i);
+        }
+
+        // 2️⃣ Ghi vào DB; lỗi thì trả lại các chỗ đã giữ
+        InterviewRepository.Created created;
+        try {
+            created = repository.createInterviews(accepted.stream().map(invites::get).toList());
+        } catch (RuntimeException e) {
+            for (InterviewCalendar.Booking booking : bookings) calendar.release(booking);
+            throw e;
+        }
+        List<Map<String, Object>> rows = created.interviews();
+        List<Map<String, Object>> saved = new ArrayList<>(Collections.nCopies(invites.size(), null));
+        for (int k = 0; k < accepted.size(); k++) {
+            int i = accepted.get(k);
+            Map<String, Object> row = rows.get(k);
+            saved.set(i, row);
+            if (row == null) {
+                calendar.release(bookings[i]);
+            } else {
+                calendar.confirm(bookings[i], ((Number) row.get("LichHenID")).intValue());
+            }
+        }
+
+        // 3️⃣ Đẩy thông báo realtime cho ứng viên đang mở kết nối (đã commit)
+        for (Map<String, Object> notification : created.notifications()) {
+            eventPublisher.publishEvent(NotificationCreatedEvent.of(notification));
+        }
+
+        // 4️⃣ Gửi email nếu có địa chỉ (sau khi đã commit, không chờ SMTP)
+        for (int i = 0; i < saved.size(); i++) {
+            Map<String, Object> invite = invites.get(i);
+            String emailUngVien = (String) invite.get("EmailUngVien");
+            if (saved.get(i) == null || emailUngVien == null || emailUngVien.isBlank()) continue;
             mailService.sendMail(
                     emailUngVien,
                     "Thư mời phỏng vấn từ nhà tuyển dụng",
@@ -37,18 +144,90 @@ public class InterviewService {
                     <b>Địa điểm:</b> %s<br>
                     <b>Người phỏng vấn:</b> %s</p>
                     <p>Trân trọng,<br>Phòng nhân sự</p>
-                    """.formatted(noiDungThu, ngayHen, diaDiem, nguoiPhongVan)
+                    """.formatted(invite.get("NoiDungThu"), invite.get("NgayHen"),
+                            invite.get("DiaDiem"), invite.get("NguoiPhongVan"))
             );
         }
-
         return saved;
     }
 
+    /**
+     * Gửi thư mời hàng loạt, trả kết quả từng dòng.
+     *
+     * @throws IllegalArgumentException danh sách rỗng, quá {@value #BULK_LIMIT} dòng hoặc có ngày hẹn không hợp lệ
+     */
+    public Map<String, Object> createInterviewsBulk(List<Map<String, Object>> reqs) {
+        if (reqs == null || reqs.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách thư mời trống");
+        }
+        if (reqs.size() > BULK_LIMIT) {
+            throw new IllegalArgumentException("Tối đa " + BULK_LIMIT + " thư mời mỗi lần gửi");
+        }
+
+        Integer[] conflicts = new Integer[reqs.size()];
+        List<Map<String, Object>> saved = createInterviews(reqs, conflicts);
+        List<Map<String, Object>> items = new ArrayList<>(saved.size());
+        int created = 0;
+        for (int i = 0; i < saved.size(); i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("STT", i + 1);
+            if (saved.get(i) != null) {
+                item.put("ThanhCong", true);
+                item.putAll(saved.get(i));
+                created++;
+            } else {
+                item.put("ThanhCong", false);
+                item.put("UngTuyenID", reqs.get(i).get("ungTuyenID"));
+                item.put("Loi", conflicts[i] != null ? conflictMessage(conflicts[i]) : "Không tìm thấy hồ sơ ứng tuyển.");
+            }
+            items.add(item);
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("total", items.size());
+        resp.put("created", created);
+        resp.put("failed", items.size() - created);
+        resp.put("items", items);
+        return resp;
+    }
+
     public List<Map<String, Object>> getByEmployer(int ntdId) {
         return repository.listByEmployer(ntdId);
     }
 
     public Map<String, Object> confirmInterview(int lichHenID, String trangThai) {
-        return repository.confirmInterview(lichHenID, trangThai);
+        Map<String, Object> result = repository.confirmInterview(lichHenID, trangThai);
+        calendar.onStatusChanged(lichHenID, trangThai);
+        return result;
+    }
+
+    /**
+     * Khoảng rảnh của người phỏng vấn (hoặc cả công ty nếu bỏ trống) trong [from, to).
+     *
+     * @throws IllegalArgumentException khoảng thời gian hoặc thời lượng không hợp lệ
+     * @throws IllegalStateException     lịch chưa nạp xong
+     */
+    public List<Map<String, Object>> getFreeSlots(int ntdId, String interviewer, String from, String to, int duration) {
+        LocalDateTime start = InterviewCalendar.parse(from);
+        LocalDateTime end = InterviewCalendar.parse(to);
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ (yyyy-MM-dd HH:mm)");
+        }
+        if (end.isAfter(start.plusDays(MAX_SLOT_DAYS))) {
+            throw new IllegalArgumentException("Chỉ tìm tối đa " + MAX_SLOT_DAYS + " ngày mỗi lần");
+        }
+        if (duration < 1 || duration > MAX_MINUTES) {
+            throw new IllegalArgumentException("Thời lượng phỏng vấn phải từ 1 đến " + MAX_MINUTES + " phút");
+        }
+        if (!calendar.isReady()) {
+            throw new IllegalStateException("Lịch phỏng vấn đang được nạp, vui lòng thử lại sau");
+        }
+        return calendar.freeSlots(ntdId, interviewer, start, end, duration);
+    }
+
+    private static String conflictMessage(int lichHenId) {
+        return lichHenId < 0
+                ? "Người phỏng vấn đã có lịch hẹn khác trùng giờ."
+                : "Trùng lịch với lịch hẹn #" + lichHenId + ".";
     }
 }
@@ -0,0 +1,94 @@
+package com.job.backend.service;
+
+import com.job.backend.repository.JobRepository;
+import com.job.backend.util.SalaryParser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Điền các cột dẫn xuất cho tin cũ (tạo trước khi có cột) khi ứng dụng khởi động.
+ * Chạy trước khi các index trong bộ nhớ nạp dữ liệu để index thấy ngay giá trị mới.
+ * Duyệt theo keyset trên TinID, mỗi lô ghi bằng 1 JDBC batch.
+ */
+@Service
+@RequiredArgsConstructor
+public class JobBackfillService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JobRepository jobRepository;
+    private final LocationCatalog locationCatalog;
+
+    @Value("${app.salary.usd-rate:25000}")
+    private long usdRate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        try {
+            int updated = backfillSalaries();
+            if (updated > 0) System.out.println("✅ Đã tách khoảng lương cho " + updated + " tin cũ");
+        } catch (Exception e) {
+            System.err.println("❌ Backfill khoảng lương thất bại: " + e.getMessage());
+        }
+        try {
+            int updated = backfillLocations();
+            if (updated > 0) System.out.println("✅ Đã gán mã địa điểm cho " + updated + " tin cũ");
+        } catch (Exception e) {
+            System.err.println("❌ Backfill mã địa điểm thất bại: " + e.getMessage());
+        }
+    }
+
+    private int backfillSalaries() {
+        int total = 0;
+        int lastId = 0;
+        while (true) {
+            List<Map<String, Object>> batch = jobRepository.findUnparsedSalaries(lastId, BATCH_SIZE);
+            if (batch.isEmpty()) return total;
+
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (Map<String, Object> row : batch) {
+                lastId = ((Number) row.get("TinID")).intValue();
+                SalaryParser.SalaryRange range = SalaryParser.parse((String) row.get("MucLuong"), usdRate);
+                // không tách được gì thì bỏ qua, lần khởi động sau vẫn thử lại (parser có thể đã tốt hơn)
+                if (range.min() == null && range.max() == null && !range.negotiable()) continue;
+                rows.add(new Object[]{range.min(), range.max(), range.negotiable(), lastId});
+            }
+            if (!rows.isEmpty()) {
+                jobRepository.updateSalaries(rows);
+                total += rows.size();
+            }
+            if (batch.size() < BATCH_SIZE) return total;
+        }
+    }
+
+    private int backfillLocations() {
+        int total = 0;
+        int lastId = 0;
+        while (true) {
+            List<Map<String, Object>> batch = jobRepository.findUncodedLocations(lastId, BATCH_SIZE);
+            if (batch.isEmpty()) return total;
+
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (Map<String, Object> row : batch) {
+                lastId = ((Number) row.get("TinID")).intValue();
+                String code = locationCatalog.canonicalize((String) row.get("DiaDiemLamViec"));
+                if (code != null) rows.add(new Object[]{code, lastId});
+            }
+            if (!rows.isEmpty()) {
+                jobRepository.updateLocationCodes(rows);
+                total += rows.size();
+            }
+            if (batch.size() < BATCH_SIZE) return total;
+        }
+    }
+}
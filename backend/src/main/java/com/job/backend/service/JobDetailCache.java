@@ -0,0 +1,99 @@
+package com.job.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.job.backend.event.EmployerChangedEvent;
+import com.job.backend.event.JobChangedEvent;
+import com.job.backend.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache đọc xuyên (read-through) cho chi tiết tin tuyển dụng (JobRepository.findById).
+ * - Caffeine (W-TinyLFU), giới hạn theo ước lượng số byte chứ không theo số entry,
+ *   vì MoTa/YeuCau/MoTaCongTy là nvarchar(max) có độ dài rất khác nhau.
+ * - Xóa đúng entry khi tin được sửa/xóa/hết hạn; xóa mọi tin của công ty khi công ty
+ *   đổi thông tin (các cột công ty nằm trong dòng join).
+ */
+@Component
+public class JobDetailCache implements MetricsSource {
+
+    private final JobRepository jobRepository;
+    private final Cache<Integer, Map<String, Object>> cache;
+    private final long maxBytes;
+
+    public JobDetailCache(JobRepository jobRepository,
+                          @Value("${app.cache.job-detail.max-bytes:67108864}") long maxBytes) {
+        this.jobRepository = jobRepository;
+        this.maxBytes = maxBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Integer tinId, Map<String, Object> row) -> estimateBytes(row))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Lấy chi tiết tin (không sửa được). Không tìm thấy thì ném lỗi như findById và không cache.
+     */
+    public Map<String, Object> get(int tinId) {
+        return cache.get(tinId, id -> Collections.unmodifiableMap(jobRepository.findById(id)));
+    }
+
+    public void invalidate(int tinId) {
+        cache.invalidate(tinId);
+    }
+
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        cache.invalidate(event.tinId());
+    }
+
+    @EventListener
+    public void onEmployerChanged(EmployerChangedEvent event) {
+        Integer ntdId = event.ntdId();
+        cache.asMap().values().removeIf(row -> row.get("NTDID") instanceof Number n && n.intValue() == ntdId);
+    }
+
+    @Override
+    public String metricsName() {
+        return "job-detail-cache";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("hitCount", stats.hitCount());
+        m.put("missCount", stats.missCount());
+        m.put("hitRate", stats.hitRate());
+        m.put("evictionCount", stats.evictionCount());
+        m.put("evictionWeightBytes", stats.evictionWeight());
+        m.put("loadFailureCount", stats.loadFailureCount());
+        m.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        m.put("entries", cache.estimatedSize());
+        m.put("weightedBytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        m.put("maxBytes", maxBytes);
+        return m;
+    }
+
+    // Ước lượng thô kích thước 1 dòng: chuỗi 2 byte/ký tự + chi phí cố định mỗi cột
+    private static int estimateBytes(Map<String, Object> row) {
+        long bytes = 64;
+        for (Map.Entry<String, Object> e : row.entrySet()) {
+            bytes += 48 + 2L * e.getKey().length();
+            if (e.getValue() instanceof CharSequence cs) {
+                bytes += 40 + 2L * cs.length();
+            } else if (e.getValue() != null) {
+                bytes += 24;
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,109 @@
+package com.job.backend.service;
+
+import com.job.backend.event.JobChangedEvent;
+import com.job.backend.repository.JobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Job nền chuyển các tin quá hạn nộp (HanNop < hôm nay) từ "Đang hiển thị" sang "Đã hết hạn".
+ * - Chạy theo lô UPDATE TOP (N), mỗi lô là 1 transaction ngắn, nghỉ giữa các lô để không giữ
+ *   khóa lâu trên TinTuyenDung.
+ * - Mỗi tin hết hạn phát JobChangedEvent(EXPIRED) để index/cache trong bộ nhớ gỡ tin.
+ * - Số liệu từng lượt chạy xem ở /api/metrics/job-expiry.
+ */
+@Service
+@RequiredArgsConstructor
+public class JobExpiryService implements MetricsSource {
+
+    private final JobRepository jobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.expiry.pause-ms:50}")
+    private long pauseMillis;
+
+    private volatile LocalDateTime lastRunAt;
+    private volatile int lastRunExpired;
+    private volatile int lastRunBatches;
+    private volatile long lastRunMillis;
+    private volatile long maxBatchMillis;
+    private volatile String lastError;
+    private volatile long totalExpired;
+    private volatile long runs;
+
+    @Scheduled(initialDelayString = "${app.expiry.initial-delay-ms:60000}",
+            fixedDelayString = "${app.expiry.interval-ms:300000}")
+    public void expireOverdueJobs() {
+        long start = System.currentTimeMillis();
+        int expired = 0;
+        int batches = 0;
+        long slowest = 0;
+        String error = null;
+        try {
+            while (true) {
+                long batchStart = System.currentTimeMillis();
+                List<Map<String, Object>> rows = jobRepository.expireBatch(batchSize);
+                slowest = Math.max(slowest, System.currentTimeMillis() - batchStart);
+                batches++;
+
+                for (Map<String, Object> row : rows) {
+                    int tinId = ((Number) row.get("TinID")).intValue();
+                    eventPublisher.publishEvent(new JobChangedEvent(JobChangedEvent.Kind.EXPIRED, tinId, row));
+                }
+                expired += rows.size();
+                if (rows.size() < batchSize) break;
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Bị dừng giữa chừng";
+        } catch (Exception e) {
+            error = e.getMessage();
+            System.err.println("❌ Chuyển tin hết hạn thất bại: " + e.getMessage());
+        }
+
+        lastRunAt = LocalDateTime.now();
+        lastRunExpired = expired;
+        lastRunBatches = batches;
+        lastRunMillis = System.currentTimeMillis() - start;
+        maxBatchMillis = slowest;
+        lastError = error;
+        totalExpired += expired;
+        runs++;
+        if (expired > 0) {
+            System.out.println("✅ Đã chuyển " + expired + " tin sang hết hạn (" + batches + " lô, "
+                    + lastRunMillis + " ms)");
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "job-expiry";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("runs", runs);
+        m.put("totalExpired", totalExpired);
+        m.put("lastRunAt", lastRunAt);
+        m.put("lastRunExpired", lastRunExpired);
+        m.put("lastRunBatches", lastRunBatches);
+        m.put("lastRunMillis", lastRunMillis);
+        m.put("lastRunMaxBatchMillis", maxBatchMillis);
+        m.put("lastError", lastError);
+        m.put("batchSize", batchSize);
+        return m;
+    }
+}
@@ -0,0 +1,203 @@
+package com.job.backend.service;
+
+import com.job.backend.dto.JobQuery;
+import com.job.backend.repository.JobRepository;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Index facet trong bộ nhớ: mỗi địa điểm / LoaiHinhCongViec giữ 1 BitSet
+ * đánh dấu các TinID đang hiển thị có giá trị đó. Tổng số kết quả và số lượng theo từng
+ * giá trị được tính bằng phép AND trên bitset, không cần COUNT/GROUP BY xuống DB.
+ * Tin đã có MaDiaDiem được gom theo tên tỉnh/thành chuẩn ("HCM", "TP.HCM" -> "Hồ Chí Minh").
+ * Được cập nhật qua JobChangedEvent (tạo/sửa/xóa tin, tin hết hạn).
+ */
+@Component
+public class JobFacetIndex extends AbstractJobIndex {
+
+    private final BitSet active = new BitSet();
+    private final Map<String, Facet> byLocation = new HashMap<>();
+    private final Map<String, Facet> byType = new HashMap<>();
+    private final Map<Integer, Entry> values = new HashMap<>();
+
+    private final LocationCatalog catalog;
+
+    public JobFacetIndex(JobRepository jobRepository, LocationCatalog catalog) {
+        super(jobRepository);
+        this.catalog = catalog;
+    }
+
+    /**
+     * Bitset của 1 giá trị facet + dạng bỏ dấu để lọc "chứa chuỗi" giống LIKE cũ.
+     */
+    private record Facet(String folded, BitSet bits) {
+    }
+
+    /**
+     * Giá trị đã index của 1 tin (để gỡ khỏi facet và lọc theo lương).
+     */
+    private record Entry(String location, String type, Long salaryMin, Long salaryMax) {
+    }
+
+    /**
+     * Tin có đang hiển thị không (chỉ có nghĩa khi index đã sẵn sàng).
+     */
+    public boolean isActive(int tinId) {
+        lock.readLock().lock();
+        try {
+            return tinId >= 0 && active.get(tinId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tổng số tin khớp bộ lọc và số lượng theo từng giá trị facet.
+     * Số lượng của 1 chiều được tính khi bỏ bộ lọc của chính chiều đó
+     * (để giao diện hiển thị được các lựa chọn thay thế).
+     *
+     * Bộ lọc lương áp dụng cho cả tổng lẫn mọi chiều facet.
+     *
+     * @param keywordHits TinID khớp từ khóa (null = không lọc theo từ khóa)
+     */
+    public Map<String, Object> count(JobQuery query, BitSet keywordHits) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) active.clone();
+            if (keywordHits != null) base.and(keywordHits);
+            if (query.minSalary() != null || query.maxSalary() != null) {
+                for (int id = base.nextSetBit(0); id >= 0; id = base.nextSetBit(id + 1)) {
+                    if (!salaryMatches(values.get(id), query)) base.clear(id);
+                }
+            }
+
+            BitSet locationMask = null;
+            if (query.hasMaDiaDiem()) {
+                LocationCatalog.Location location = catalog.find(query.maDiaDiem());
+                Facet facet = location == null ? null : byLocation.get(location.name());
+                locationMask = facet == null ? new BitSet() : facet.bits();
+            } else if (query.hasDiaDiem()) {
+                String needle = TextNormalizer.normalize(query.diaDiem());
+                locationMask = new BitSet();
+                for (Facet facet : byLocation.values()) {
+                    if (facet.folded().contains(needle)) locationMask.or(facet.bits());
+                }
+            }
+            BitSet typeMask = null;
+            if (query.hasLoaiHinh()) {
+                Facet facet = byType.get(query.loaiHinh().trim());
+                typeMask = facet == null ? new BitSet() : facet.bits();
+            }
+
+            BitSet baseForLocation = (BitSet) base.clone();
+            if (typeMask != null) baseForLocation.and(typeMask);
+            BitSet baseForType = (BitSet) base.clone();
+            if (locationMask != null) baseForType.and(locationMask);
+
+            BitSet matched = (BitSet) baseForLocation.clone();
+            if (locationMask != null) matched.and(locationMask);
+
+            Map<String, Object> facets = new LinkedHashMap<>();
+            facets.put("diaDiem", countsBy(byLocation, baseForLocation));
+            facets.put("loaiHinh", countsBy(byType, baseForType));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("total", matched.cardinality());
+            result.put("facets", facets);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Khoảng lương của tin giao với [minSalary, maxSalary] (tin không ghi lương bị loại, như SQL)
+    private static boolean salaryMatches(Entry entry, JobQuery query) {
+        if (entry == null) return false;
+        if (query.minSalary() != null
+                && (entry.salaryMax() == null || entry.salaryMax() < query.minSalary())) return false;
+        return query.maxSalary() == null
+                || (entry.salaryMin() != null && entry.salaryMin() <= query.maxSalary());
+    }
+
+    private static Map<String, Integer> countsBy(Map<String, Facet> dimension, BitSet filter) {
+        Map<String, Integer> counts = new HashMap<>();
+        dimension.forEach((value, facet) -> {
+            int c = andCardinality(facet.bits(), filter);
+            if (c > 0) counts.put(value, c);
+        });
+
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+
+    // Đếm |a ∧ b| mà không cấp phát bitset mới
+    private static int andCardinality(BitSet a, BitSet b) {
+        int count = 0;
+        for (int i = a.nextSetBit(0); i >= 0; i = a.nextSetBit(i + 1)) {
+            if (b.get(i)) count++;
+        }
+        return count;
+    }
+
+    @Override
+    protected String name() {
+        return "JobFacetIndex";
+    }
+
+    @Override
+    protected void clear() {
+        active.clear();
+        byLocation.clear();
+        byType.clear();
+        values.clear();
+    }
+
+    @Override
+    protected void put(int tinId, Map<String, Object> row) {
+        LocationCatalog.Location canonical = catalog.find((String) row.get("MaDiaDiem"));
+        String location = canonical != null ? canonical.name() : trimToNull(row.get("DiaDiemLamViec"));
+        String type = trimToNull(row.get("LoaiHinhCongViec"));
+
+        active.set(tinId);
+        if (location != null) facet(byLocation, location).bits().set(tinId);
+        if (type != null) facet(byType, type).bits().set(tinId);
+        values.put(tinId, new Entry(location, type,
+                JobSearchIndex.toLong(row.get("LuongMin")), JobSearchIndex.toLong(row.get("LuongMax"))));
+    }
+
+    @Override
+    protected void remove(int tinId) {
+        Entry old = values.remove(tinId);
+        if (old == null) return;
+
+        active.clear(tinId);
+        unset(byLocation, old.location(), tinId);
+        unset(byType, old.type(), tinId);
+    }
+
+    private static Facet facet(Map<String, Facet> dimension, String value) {
+        return dimension.computeIfAbsent(value, v -> new Facet(TextNormalizer.normalize(v), new BitSet()));
+    }
+
+    private static void unset(Map<String, Facet> dimension, String value, int tinId) {
+        if (value == null) return;
+        Facet facet = dimension.get(value);
+        if (facet == null) return;
+        facet.bits().clear(tinId);
+        if (facet.bits().isEmpty()) dimension.remove(value);
+    }
+
+    private static String trimToNull(Object value) {
+        if (value == null) return null;
+        String s = value.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+}
@@ -0,0 +1,186 @@
+package com.job.backend.service;
+
+import com.job.backend.event.JobChangedEvent;
+import com.job.backend.event.NotificationCreatedEvent;
+import com.job.backend.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Báo cho mọi ứng viên đã ứng tuyển khi tin bị sửa, đóng hoặc hết hạn (JobChangedEvent UPDATED/EXPIRED).
+ * - Không chạy trong request của nhà tuyển dụng: sự kiện chỉ được ghi nhận, 1 luồng nền ghi thông báo.
+ * - Ghi theo lô app.fanout.chunk-size ứng viên, mỗi lô 1 câu INSERT ... SELECT (transaction ngắn),
+ *   nghỉ app.fanout.pause-ms giữa các lô; mỗi dòng vừa ghi phát NotificationCreatedEvent (SSE, bộ đếm chưa đọc).
+ * - Giới hạn theo tin: chờ app.fanout.debounce-ms sau thay đổi cuối, mỗi tin tối đa 1 lượt mỗi
+ *   app.fanout.min-interval-ms; các thay đổi dồn lại trong lúc chờ gộp thành 1 lượt với nội dung mới nhất.
+ * Tin bị xóa (DELETED) thì không báo: FK_UngTuyen_Tin không có ON DELETE CASCADE nên chỉ xóa được tin
+ * chưa có hồ sơ ứng tuyển, tức không có ai để báo.
+ */
+@Service
+public class JobNotificationFanout implements MetricsSource {
+
+    /**
+     * 1 lượt báo đang chờ của 1 tin.
+     */
+    private record Task(int tinId, String tieuDe, String noiDung, long dueAt) {
+    }
+
+    private final NotificationRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final long debounceMillis;
+    private final long minIntervalMillis;
+
+    private final Map<Integer, Task> pending = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> lastFanoutAt = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "job-fanout");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder fanouts = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private volatile long maxFanoutMillis;
+    private volatile LocalDateTime lastFanoutTime;
+    private volatile String lastError;
+
+    public JobNotificationFanout(NotificationRepository repository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${app.fanout.chunk-size:1000}") int chunkSize,
+                                 @Value("${app.fanout.pause-ms:50}") long pauseMillis,
+                                 @Value("${app.fanout.debounce-ms:5000}") long debounceMillis,
+                                 @Value("${app.fanout.min-interval-ms:600000}") long minIntervalMillis,
+                                 @Value("${app.fanout.poll-ms:1000}") long pollMillis) {
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.pauseMillis = pauseMillis;
+        this.debounceMillis = debounceMillis;
+        this.minIntervalMillis = minIntervalMillis;
+        worker.scheduleWithFixedDelay(this::drain, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        if (event.row() == null) return;
+        String tieuDe;
+        String noiDung;
+        Object title = event.row().get("TieuDe");
+        switch (event.kind()) {
+            case EXPIRED -> {
+                tieuDe = "Tin tuyển dụng đã hết hạn";
+                noiDung = "Tin \"" + title + "\" (#" + event.tinId() + ") bạn đã ứng tuyển đã hết hạn nhận hồ sơ.";
+            }
+            case UPDATED -> {
+                if (event.isActive()) {
+                    tieuDe = "Tin tuyển dụng đã được cập nhật";
+                    noiDung = "Nhà tuyển dụng vừa cập nhật tin \"" + title + "\" (#" + event.tinId()
+                            + ") bạn đã ứng tuyển.";
+                } else {
+                    tieuDe = "Tin tuyển dụng đã đóng";
+                    noiDung = "Tin \"" + title + "\" (#" + event.tinId() + ") bạn đã ứng tuyển đã ngừng nhận hồ sơ ("
+                            + event.row().get("TrangThai") + ").";
+                }
+            }
+            default -> {
+                return;
+            }
+        }
+
+        events.increment();
+        long now = System.currentTimeMillis();
+        long earliest = lastFanoutAt.getOrDefault(event.tinId(), 0L) + minIntervalMillis;
+        Task task = new Task(event.tinId(), tieuDe, noiDung, Math.max(now + debounceMillis, earliest));
+        // Gộp với lượt đang chờ của cùng tin: giữ nội dung mới nhất, không lùi hạn quá giới hạn theo tin
+        Task previous = pending.put(event.tinId(), task);
+        if (previous != null) coalesced.increment();
+    }
+
+    // Chạy các lượt đã đến hạn trên luồng nền
+    private void drain() {
+        long now = System.currentTimeMillis();
+        for (Task task : new ArrayList<>(pending.values())) {
+            if (task.dueAt() > now) continue;
+            // Chỉ lấy đúng lượt này; có thay đổi mới chen vào thì để lượt mới chạy lần sau
+            if (!pending.remove(task.tinId(), task)) continue;
+            lastFanoutAt.put(task.tinId(), System.currentTimeMillis());
+            try {
+                fanOut(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                System.err.println("❌ Báo thay đổi tin #" + task.tinId() + " cho ứng viên thất bại: " + e.getMessage());
+            }
+        }
+        // Bỏ mốc của các tin đã qua khoảng giới hạn để map không lớn dần
+        lastFanoutAt.values().removeIf(at -> at + minIntervalMillis < now);
+    }
+
+    private void fanOut(Task task) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        int afterUserId = 0;
+        int total = 0;
+        while (true) {
+            List<Map<String, Object>> rows = repository.insertForJobApplicants(
+                    task.tinId(), afterUserId, task.tieuDe(), task.noiDung(), chunkSize);
+            for (Map<String, Object> row : rows) {
+                afterUserId = Math.max(afterUserId, ((Number) row.get("UserID")).intValue());
+                eventPublisher.publishEvent(NotificationCreatedEvent.of(row));
+            }
+            total += rows.size();
+            if (rows.size() < chunkSize) break;
+            Thread.sleep(pauseMillis);
+        }
+
+        fanouts.increment();
+        written.add(total);
+        maxFanoutMillis = Math.max(maxFanoutMillis, System.currentTimeMillis() - start);
+        lastFanoutTime = LocalDateTime.now();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Override
+    public String metricsName() {
+        return "job-fanout";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("pendingJobs", pending.size());
+        m.put("events", events.sum());
+        m.put("coalesced", coalesced.sum());
+        m.put("fanouts", fanouts.sum());
+        m.put("notificationsWritten", written.sum());
+        m.put("maxFanoutMillis", maxFanoutMillis);
+        m.put("lastFanoutAt", lastFanoutTime);
+        m.put("lastError", lastError);
+        m.put("chunkSize", chunkSize);
+        m.put("minIntervalMillis", minIntervalMillis);
+        return m;
+    }
+}
@@ -0,0 +1,272 @@
+package com.job.backend.service;
+
+import com.job.backend.dto.JobQuery;
+import com.job.backend.repository.JobRepository;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index đảo ngược trong bộ nhớ cho tìm kiếm từ khóa trên TieuDe/MoTa/YeuCau.
+ * - Từ được bỏ dấu ("lập trình" khớp "lap trinh").
+ * - Truy vấn nhiều từ = giao các posting list (bắt đầu từ list ngắn nhất).
+ * - Xếp hạng BM25, tiêu đề được tính trọng số cao hơn mô tả/yêu cầu.
+ * Chỉ chứa tin đang hiển thị; DB chỉ được đọc để lấy dữ liệu của trang kết quả.
+ */
+@Component
+public class JobSearchIndex extends AbstractJobIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Integer, IndexedJob> docs = new HashMap<>();
+    private long totalLength;
+
+    public JobSearchIndex(JobRepository jobRepository) {
+        super(jobRepository);
+    }
+
+    /**
+     * Một kết quả tìm kiếm: TinID + điểm BM25 + thời điểm đăng (để sắp theo ngày nếu cần)
+     * + lương tối đa (null nếu tin không ghi lương cụ thể).
+     */
+    public record Hit(int tinId, double score, long createdAt, Long salaryMax) {
+    }
+
+    private record IndexedJob(int tinId, int length, long createdAt,
+                              String diaDiem, String maDiaDiem, String loaiHinh, Long salaryMin, Long salaryMax,
+                              String[] terms) {
+    }
+
+    /**
+     * Tìm các tin chứa tất cả từ khóa, lọc theo mã địa điểm (bằng) hoặc địa điểm tự do
+     * (chứa chuỗi, bỏ dấu), loại hình (bằng)
+     * và khoảng lương (giao nhau, như SQL). Mặc định sắp theo điểm giảm dần, cùng điểm thì tin
+     * mới hơn trước; sort=salary thì lương tối đa cao trước, tin không ghi lương xếp cuối.
+     */
+    public List<Hit> search(JobQuery query) {
+        Set<String> terms = new LinkedHashSet<>(TextNormalizer.tokenize(query.keyword()));
+        if (terms.isEmpty()) return List.of();
+
+        String codeFilter = query.hasMaDiaDiem() ? query.maDiaDiem() : null;
+        String ddFilter = codeFilter == null && query.hasDiaDiem() ? TextNormalizer.normalize(query.diaDiem()) : null;
+        String lhFilter = query.hasLoaiHinh() ? query.loaiHinh().trim() : null;
+
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[terms.size()];
+            int i = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) return List.of();
+                lists[i++] = list;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(l -> l.size));
+
+            int n = docs.size();
+            double avgLength = n == 0 ? 1 : (double) totalLength / n;
+            double[] idf = new double[lists.length];
+            for (int t = 0; t < lists.length; t++) {
+                int df = lists[t].size;
+                idf[t] = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            }
+
+            List<Hit> hits = new ArrayList<>();
+            int[] cursors = new int[lists.length];
+            PostingList shortest = lists[0];
+            outer:
+            for (int p = 0; p < shortest.size; p++) {
+                int docId = shortest.ids[p];
+                cursors[0] = p;
+                for (int t = 1; t < lists.length; t++) {
+                    int pos = lists[t].advance(cursors[t], docId);
+                    cursors[t] = pos;
+                    if (pos >= lists[t].size) break outer;
+                    if (lists[t].ids[pos] != docId) continue outer;
+                }
+
+                IndexedJob doc = docs.get(docId);
+                if (codeFilter != null && !codeFilter.equals(doc.maDiaDiem())) continue;
+                if (ddFilter != null && !doc.diaDiem().contains(ddFilter)) continue;
+                if (lhFilter != null && !lhFilter.equals(doc.loaiHinh())) continue;
+                if (query.minSalary() != null
+                        && (doc.salaryMax() == null || doc.salaryMax() < query.minSalary())) continue;
+                if (query.maxSalary() != null
+                        && (doc.salaryMin() == null || doc.salaryMin() > query.maxSalary())) continue;
+
+                double norm = K1 * (1 - B + B * doc.length() / avgLength);
+                double score = 0;
+                for (int t = 0; t < lists.length; t++) {
+                    int tf = lists[t].tfs[cursors[t]];
+                    score += idf[t] * (tf * (K1 + 1)) / (tf + norm);
+                }
+                hits.add(new Hit(docId, score, doc.createdAt(), doc.salaryMax()));
+            }
+
+            hits.sort(query.sortBySalary()
+                    ? Comparator.comparing(Hit::salaryMax, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+                            .thenComparingInt(Hit::tinId).reversed()
+                    : Comparator.comparingDouble(Hit::score).reversed()
+                            .thenComparing(Comparator.comparingLong(Hit::createdAt).reversed()));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tập TinID chứa tất cả từ trong {@code keyword} (không lọc, không tính điểm).
+     * Dùng cho đếm facet: bộ lọc địa điểm/loại hình do JobFacetIndex áp dụng.
+     */
+    public BitSet matchAll(String keyword) {
+        BitSet result = new BitSet();
+        Set<String> terms = new LinkedHashSet<>(TextNormalizer.tokenize(keyword));
+        if (terms.isEmpty()) return result;
+
+        lock.readLock().lock();
+        try {
+            boolean first = true;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) return new BitSet();
+                BitSet ids = new BitSet();
+                for (int i = 0; i < list.size; i++) ids.set(list.ids[i]);
+                if (first) {
+                    result = ids;
+                    first = false;
+                } else {
+                    result.and(ids);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected String name() {
+        return "JobSearchIndex";
+    }
+
+    @Override
+    protected void clear() {
+        postings.clear();
+        docs.clear();
+        totalLength = 0;
+    }
+
+    @Override
+    protected void put(int tinId, Map<String, Object> row) {
+        Map<String, Integer> tf = new HashMap<>();
+        int length = 0;
+        for (String token : TextNormalizer.tokenize((String) row.get("TieuDe"))) {
+            tf.merge(token, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String field : new String[]{"MoTa", "YeuCau"}) {
+            for (String token : TextNormalizer.tokenize((String) row.get(field))) {
+                tf.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+
+        tf.forEach((term, count) -> postings.computeIfAbsent(term, k -> new PostingList()).add(tinId, count));
+
+        Object createdAt = row.get("CreatedAt");
+        long created = createdAt instanceof Timestamp ts ? ts.getTime()
+                : createdAt instanceof LocalDateTime ldt ? Timestamp.valueOf(ldt).getTime() : 0L;
+        String loaiHinh = (String) row.get("LoaiHinhCongViec");
+        docs.put(tinId, new IndexedJob(tinId, length, created,
+                TextNormalizer.normalize((String) row.get("DiaDiemLamViec")),
+                (String) row.get("MaDiaDiem"),
+                loaiHinh == null ? null : loaiHinh.trim(),
+                toLong(row.get("LuongMin")), toLong(row.get("LuongMax")),
+                tf.keySet().toArray(String[]::new)));
+        totalLength += length;
+    }
+
+    static Long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : null;
+    }
+
+    @Override
+    protected void remove(int tinId) {
+        IndexedJob doc = docs.remove(tinId);
+        if (doc == null) return;
+        for (String term : doc.terms()) {
+            PostingList list = postings.get(term);
+            if (list != null && list.remove(tinId) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= doc.length();
+    }
+
+    /**
+     * Posting list: TinID tăng dần + tần suất tương ứng, lưu bằng mảng nguyên thủy cho gọn.
+     */
+    private static final class PostingList {
+        int[] ids = new int[4];
+        int[] tfs = new int[4];
+        int size;
+
+        void add(int id, int tf) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                tfs[pos] = tf;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(tfs, pos, tfs, pos + 1, size - pos);
+            ids[pos] = id;
+            tfs[pos] = tf;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            System.arraycopy(tfs, pos + 1, tfs, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Vị trí đầu tiên >= from có id >= target (galloping rồi tìm nhị phân).
+         */
+        int advance(int from, int target) {
+            if (from >= size || ids[from] >= target) return from;
+            int step = 1;
+            int lo = from;
+            int hi = from + 1;
+            while (hi < size && ids[hi] < target) {
+                lo = hi;
+                step <<= 1;
+                hi = from + step;
+            }
+            if (hi > size) hi = size;
+            int pos = Arrays.binarySearch(ids, lo + 1, hi, target);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.job.backend.service;
 
+import com.job.backend.dto.JobQuery;
+import com.job.backend.event.JobChangedEvent;
 import com.job.backend.repository.JobRepository;
+import com.job.backend.util.KeysetCursor;
+import com.job.backend.util.SalaryParser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,38 +22,185 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class JobService {
     private final JobRepository jobRepository;
+    private final JobSearchIndex searchIndex;
+    private final JobFacetIndex facetIndex;
+    private final JobDetailCache detailCache;
+    private final LocationCatalog locationCatalog;
+    private final LocationIndex locationIndex;
+    private final JobSuggestIndex suggestIndex;
+    private final JobViewCounter viewCounter;
+    private final DuplicateJobDetector duplicateDetector;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.salary.usd-rate:25000}")
+    private long usdRate;
+
+    public Map<String, Object> getAllJobs(JobQuery query, int page, int size) {
+        query = resolveLocation(query);
+        List<Map<String, Object>> items;
+        if (query.hasKeyword() && searchIndex.isReady()) {
+            // Tìm trên index trong bộ nhớ, DB chỉ lấy dữ liệu cho đúng trang cần trả về
+            List<JobSearchIndex.Hit> hits = searchIndex.search(query);
+            int from = Math.min(Math.max(page - 1, 0) * size, hits.size());
+            int to = Math.min(from + size, hits.size());
+            List<Integer> ids = hits.subList(from, to).stream().map(JobSearchIndex.Hit::tinId).toList();
+            items = jobRepository.findJobsByIds(ids);
+        } else {
+            items = jobRepository.findJobs(query, page, size);
+        }
 
-    public Map<String, Object> getAllJobs(String keyword, String diaDiem, String loaiHinh, int page, int size) {
-        List<Map<String, Object>> items = jobRepository.findJobs(keyword, diaDiem, loaiHinh, page, size);
         Map<String, Object> resp = new HashMap<>();
         resp.put("page", page);
         resp.put("size", size);
         resp.put("items", items);
         resp.put("count", items.size());
+        putFacets(resp, query);
         return resp;
     }
 
+    /**
+     * Chế độ cursor (keyset): luôn sắp theo tin mới nhất, trả kèm nextCursor
+     * (null khi đã hết). cursor rỗng = trang đầu.
+     */
+    public Map<String, Object> getJobsByCursor(JobQuery query, String cursor, int size) {
+        if (query.sortBySalary()) {
+            throw new IllegalArgumentException("Chế độ cursor chỉ hỗ trợ sắp xếp theo tin mới nhất");
+        }
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        query = resolveLocation(query);
+
+        List<Map<String, Object>> rows;
+        if (query.hasKeyword() && searchIndex.isReady()) {
+            List<Integer> ids = searchIndex.search(query).stream()
+                    .sorted(Comparator.comparingLong(JobSearchIndex.Hit::createdAt)
+                            .thenComparingInt(JobSearchIndex.Hit::tinId).reversed())
+                    .filter(h -> after == null || h.createdAt() < after.time().getTime()
+                            || (h.createdAt() == after.time().getTime() && h.tinId() < after.id()))
+                    .limit(size + 1L)
+                    .map(JobSearchIndex.Hit::tinId)
+                    .toList();
+            rows = jobRepository.findJobsByIds(ids);
+        } else {
+            rows = jobRepository.findJobsAfter(query, after, size + 1);
+        }
+
+        List<Map<String, Object>> items = rows.size() > size ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (rows.size() > size) {
+            Map<String, Object> last = items.get(items.size() - 1);
+            nextCursor = KeysetCursor.encode((Timestamp) last.get("CreatedAt"), ((Number) last.get("TinID")).intValue());
+        }
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("size", size);
+        resp.put("items", items);
+        resp.put("count", items.size());
+        resp.put("nextCursor", nextCursor);
+        putFacets(resp, query);
+        return resp;
+    }
+
+    /**
+     * Địa điểm nhập tự do nhận ra được tỉnh/thành -> lọc bằng trên MaDiaDiem thay cho LIKE.
+     */
+    private JobQuery resolveLocation(JobQuery query) {
+        if (query.hasMaDiaDiem() || !query.hasDiaDiem()) return query;
+        String code = locationCatalog.canonicalize(query.diaDiem());
+        return code == null ? query : query.withMaDiaDiem(code);
+    }
+
+    public List<Map<String, Object>> suggestLocations(String prefix, int limit) {
+        return locationIndex.suggest(prefix, Math.min(Math.max(limit, 1), 20));
+    }
+
+    /**
+     * Gợi ý tiêu đề tin / tên công ty khi đang gõ, phục vụ hoàn toàn từ bộ nhớ.
+     */
+    public List<Map<String, Object>> suggest(String q, int limit) {
+        return suggestIndex.suggest(q, Math.min(Math.max(limit, 1), 20));
+    }
+
+    /**
+     * Thêm total + facets (theo địa điểm, loại hình) từ JobFacetIndex.
+     * Bỏ qua nếu index chưa sẵn sàng hoặc có từ khóa mà index tìm kiếm chưa dùng được.
+     */
+    private void putFacets(Map<String, Object> resp, JobQuery query) {
+        if (!facetIndex.isReady() || (query.hasKeyword() && !searchIndex.isReady())) return;
+
+        BitSet keywordHits = query.hasKeyword() ? searchIndex.matchAll(query.keyword()) : null;
+        resp.putAll(facetIndex.count(query, keywordHits));
+    }
+
     public Map<String, Object> getJobDetail(int id) {
-        return jobRepository.findById(id);
+        Map<String, Object> job = new LinkedHashMap<>(detailCache.get(id));
+        viewCounter.record(id);
+        job.put("SoLuotXem", viewCounter.total(id, ((Number) job.get("SoLuotXem")).longValue()));
+        return job;
     }
 
     public List<Map<String, Object>> getJobsByEmployer(int ntdId) {
-        return jobRepository.findByEmployer(ntdId);
+        List<Map<String, Object>> jobs = jobRepository.findByEmployer(ntdId);
+        for (Map<String, Object> job : jobs) {
+            int tinId = ((Number) job.get("TinID")).intValue();
+            job.put("SoLuotXem", viewCounter.total(tinId, ((Number) job.get("SoLuotXem")).longValue()));
+        }
+        return jobs;
     }
 
     public String createJob(Map<String, Object> job) {
-        int result = jobRepository.createJob(job);
-        return (result > 0) ? "Đã tạo tin tuyển dụng mới thành công." : "Tạo tin thất bại.";
+        // Tin gần trùng với tin đang hiển thị của cùng công ty: từ chối hoặc vẫn tạo nhưng báo lại
+        DuplicateJobDetector.Match duplicate = duplicateDetector.findDuplicate(job);
+        if (duplicate != null && duplicateDetector.isRejecting()) {
+            return "Tin gần trùng với tin #" + duplicate.tinId() + " đang hiển thị ("
+                    + Math.round(duplicate.similarity() * 100) + "% giống nhau), không tạo tin mới.";
+        }
+
+        putDerivedColumns(job);
+        int tinId = jobRepository.createJob(job);
+        if (tinId <= 0) return "Tạo tin thất bại.";
+
+        publish(JobChangedEvent.Kind.CREATED, tinId, jobRepository.findSnapshot(tinId));
+        if (duplicate != null) {
+            return "Đã tạo tin tuyển dụng mới thành công. Lưu ý: tin gần trùng với tin #" + duplicate.tinId()
+                    + " (" + Math.round(duplicate.similarity() * 100) + "% giống nhau).";
+        }
+        return "Đã tạo tin tuyển dụng mới thành công.";
     }
 
     public String updateJob(int tinId, Map<String, Object> job) {
+        putDerivedColumns(job);
         int result = jobRepository.updateJob(tinId, job);
-        return (result > 0) ? "Đã cập nhật tin #" + tinId : "Không tìm thấy tin #" + tinId;
+        if (result <= 0) return "Không tìm thấy tin #" + tinId;
+
+        publish(JobChangedEvent.Kind.UPDATED, tinId, jobRepository.findSnapshot(tinId));
+        return "Đã cập nhật tin #" + tinId;
     }
 
     public String deleteJob(int tinId) {
+        Map<String, Object> before = jobRepository.findSnapshot(tinId);
         int result = jobRepository.deleteJob(tinId);
-        return (result > 0) ? "Đã xóa tin #" + tinId : "Không tìm thấy tin #" + tinId;
+        if (result <= 0) return "Không tìm thấy tin #" + tinId;
+
+        publish(JobChangedEvent.Kind.DELETED, tinId, before);
+        return "Đã xóa tin #" + tinId;
+    }
+
+    // Tách MucLuong (chuỗi tự do) thành LuongMin/LuongMax/LuongThoaThuan
+    // và DiaDiemLamViec thành MaDiaDiem để lọc bằng index
+    private void putDerivedColumns(Map<String, Object> job) {
+        Object mucLuong = job.get("MucLuong");
+        SalaryParser.SalaryRange range = SalaryParser.parse(mucLuong == null ? null : mucLuong.toString(), usdRate);
+        job.put("LuongMin", range.min());
+        job.put("LuongMax", range.max());
+        job.put("LuongThoaThuan", range.negotiable());
+
+        Object diaDiem = job.get("DiaDiemLamViec");
+        job.put("MaDiaDiem", diaDiem == null ? null : locationCatalog.canonicalize(diaDiem.toString()));
+    }
+
+    // Báo cho các index/cache trong bộ nhớ biết tin vừa thay đổi
+    private void publish(JobChangedEvent.Kind kind, int tinId, Map<String, Object> row) {
+        eventPublisher.publishEvent(new JobChangedEvent(kind, tinId, row));
     }
 
 }
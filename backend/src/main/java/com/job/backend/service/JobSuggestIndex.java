@@ -0,0 +1,206 @@
+package com.job.backend.service;
+
+import com.job.backend.event.EmployerChangedEvent;
+import com.job.backend.repository.EmployerRepository;
+import com.job.backend.repository.JobRepository;
+import com.job.backend.util.PrefixTrie;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gợi ý khi gõ ô tìm kiếm (GET /api/jobs/suggest?q=): tiêu đề tin + tên công ty.
+ * - Khóa là dạng bỏ dấu, mỗi từ đầu trong chuỗi đều là 1 điểm bắt đầu
+ *   ("Lập trình viên Java" khớp cả "lap", "trinh vi", "java").
+ * - Trọng số = số tin đang hiển thị cùng tiêu đề / của công ty đó, lấy top-K theo trọng số.
+ * - Cập nhật theo JobChangedEvent (tin) và EmployerChangedEvent (đổi tên công ty),
+ *   truy vấn không đụng tới DB.
+ */
+@Component
+public class JobSuggestIndex extends AbstractJobIndex {
+
+    public static final String TYPE_JOB = "job";
+    public static final String TYPE_COMPANY = "company";
+
+    // Chỉ đánh chỉ mục từ các từ đầu tiên, tiêu đề dài không làm phình trie
+    private static final int MAX_START_WORDS = 6;
+
+    /**
+     * Một gợi ý: loại (job/company), chuỗi hiển thị và NTDID (chỉ với company).
+     */
+    public record Suggestion(String type, String text, Integer ntdId) {
+    }
+
+    private static final class Entry {
+        final String key;
+        final Suggestion suggestion;
+        int count;
+
+        Entry(String key, Suggestion suggestion) {
+            this.key = key;
+            this.suggestion = suggestion;
+        }
+    }
+
+    private record IndexedJob(String titleKey, int ntdId) {
+    }
+
+    private final EmployerRepository employerRepository;
+    private final PrefixTrie<Suggestion> trie = new PrefixTrie<>();
+    private final Map<String, Entry> titles = new HashMap<>();
+    private final Map<Integer, Entry> companies = new HashMap<>();
+    private final Map<Integer, IndexedJob> jobs = new HashMap<>();
+
+    public JobSuggestIndex(JobRepository jobRepository, EmployerRepository employerRepository) {
+        super(jobRepository);
+        this.employerRepository = employerRepository;
+    }
+
+    /**
+     * Tối đa {@code limit} gợi ý cho chuỗi đang gõ (rỗng nếu index chưa sẵn sàng).
+     */
+    public List<Map<String, Object>> suggest(String q, int limit) {
+        String prefix = TextNormalizer.normalize(q);
+        if (prefix.isEmpty() || !isReady()) return List.of();
+        if (q.endsWith(" ")) prefix += " ";
+
+        List<Suggestion> found;
+        lock.readLock().lock();
+        try {
+            found = trie.topK(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(found.size());
+        for (Suggestion s : found) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("type", s.type());
+            item.put("text", s.text());
+            if (s.ntdId() != null) item.put("NTDID", s.ntdId());
+            result.add(item);
+        }
+        return result;
+    }
+
+    @Override
+    protected String name() {
+        return "JobSuggestIndex";
+    }
+
+    @Override
+    protected void clear() {
+        titles.values().forEach(this::unindex);
+        companies.values().forEach(this::unindex);
+        titles.clear();
+        companies.clear();
+        jobs.clear();
+    }
+
+    @Override
+    protected void put(int tinId, Map<String, Object> row) {
+        String title = trimToNull(row.get("TieuDe"));
+        String titleKey = title == null ? null : TextNormalizer.normalize(title);
+        if (titleKey != null && titleKey.isEmpty()) titleKey = null;
+        if (titleKey != null) {
+            Entry entry = titles.computeIfAbsent(titleKey,
+                    k -> new Entry(k, new Suggestion(TYPE_JOB, title, null)));
+            increment(entry, 1);
+        }
+
+        int ntdId = ((Number) row.get("NTDID")).intValue();
+        String company = trimToNull(row.get("TenCongTy"));
+        if (company != null) {
+            Entry entry = companies.computeIfAbsent(ntdId,
+                    id -> new Entry(TextNormalizer.normalize(company), new Suggestion(TYPE_COMPANY, company, id)));
+            increment(entry, 1);
+        }
+        jobs.put(tinId, new IndexedJob(titleKey, ntdId));
+    }
+
+    @Override
+    protected void remove(int tinId) {
+        IndexedJob job = jobs.remove(tinId);
+        if (job == null) return;
+
+        if (job.titleKey() != null) {
+            Entry entry = titles.get(job.titleKey());
+            if (entry != null && increment(entry, -1) == 0) titles.remove(job.titleKey());
+        }
+        Entry company = companies.get(job.ntdId());
+        if (company != null && increment(company, -1) == 0) companies.remove(job.ntdId());
+    }
+
+    /**
+     * Công ty đổi tên: thay khóa cũ bằng tên mới, giữ nguyên số tin.
+     * Công ty bị xóa thì các tin đã được gỡ qua JobChangedEvent.
+     */
+    @EventListener
+    public void onEmployerChanged(EmployerChangedEvent event) {
+        if (!isReady()) return;
+        String name;
+        try {
+            name = trimToNull(employerRepository.findById(event.ntdId()).get("TenCongTy"));
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Entry old = companies.get(event.ntdId());
+            if (old == null || old.suggestion.text().equals(name)) return;
+
+            unindex(old);
+            companies.remove(event.ntdId());
+            if (name == null) return;
+            Entry renamed = new Entry(TextNormalizer.normalize(name), new Suggestion(TYPE_COMPANY, name, event.ntdId()));
+            companies.put(event.ntdId(), renamed);
+            increment(renamed, old.count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Đổi số tin của entry và cập nhật trọng số trong trie; về 0 thì gỡ khỏi trie
+    private int increment(Entry entry, int delta) {
+        entry.count += delta;
+        if (entry.count <= 0) {
+            unindex(entry);
+            return 0;
+        }
+        for (String key : startKeys(entry.key)) {
+            trie.put(key, entry.suggestion, entry.count);
+        }
+        return entry.count;
+    }
+
+    private void unindex(Entry entry) {
+        for (String key : startKeys(entry.key)) {
+            trie.remove(key, entry.suggestion);
+        }
+    }
+
+    // "lap trinh vien java" -> [lap trinh vien java, trinh vien java, vien java, java]
+    private static List<String> startKeys(String key) {
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        while (start >= 0 && keys.size() < MAX_START_WORDS) {
+            keys.add(key.substring(start));
+            int space = key.indexOf(' ', start);
+            start = space < 0 ? -1 : space + 1;
+        }
+        return keys;
+    }
+
+    private static String trimToNull(Object value) {
+        if (value == null) return null;
+        String s = value.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+}
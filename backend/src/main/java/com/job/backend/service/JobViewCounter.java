@@ -0,0 +1,143 @@
+package com.job.backend.service;
+
+import com.job.backend.event.JobChangedEvent;
+import com.job.backend.repository.JobRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đếm lượt xem tin (GET /api/jobs/{id}) trong bộ nhớ, ghi xuống bảng LuotXemTin theo lô.
+ * - Mỗi tin 1 LongAdder (cộng phân tán theo luồng, không khóa): request không bao giờ chờ DB.
+ * - Cứ app.views.flush-ms (mặc định 5s) gom phần chênh lệch thành 1 câu MERGE; lỗi thì giữ lại
+ *   để lần sau ghi tiếp, nên nếu sập chỉ mất tối đa lượt xem của 1 chu kỳ.
+ * - Số hiển thị = tổng đã ghi (biết được từ OUTPUT của MERGE hoặc từ dòng vừa đọc) + phần chưa ghi.
+ * Lượt xem nằm ở bảng riêng thay vì cột của TinTuyenDung để việc ghi liên tục không đổi
+ * rowversion (PhienBan) của tin và không tranh khóa với các truy vấn danh sách.
+ */
+@Service
+public class JobViewCounter implements MetricsSource {
+
+    // 2 tham số mỗi tin, SQL Server giới hạn 2100 tham số mỗi câu lệnh
+    private static final int MERGE_CHUNK = 1000;
+
+    private final JobRepository jobRepository;
+    private final ConcurrentHashMap<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Long> persisted = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
+    private volatile LocalDateTime lastFlushAt;
+    private volatile int lastFlushJobs;
+    private volatile long lastFlushViews;
+    private volatile long lastFlushMillis;
+    private volatile String lastError;
+    private final LongAdder totalFlushed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public JobViewCounter(JobRepository jobRepository) {
+        this.jobRepository = jobRepository;
+    }
+
+    /**
+     * Ghi nhận 1 lượt xem (chỉ cộng trong bộ nhớ).
+     */
+    public void record(int tinId) {
+        pending.computeIfAbsent(tinId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Tổng lượt xem hiện tại của tin. {@code fromRow} là SoLuotXem đọc được từ DB
+     * (có thể cũ nếu dòng lấy từ cache); tổng đã ghi chỉ tăng nên lấy giá trị lớn hơn.
+     */
+    public long total(int tinId, long fromRow) {
+        long stored = persisted.merge(tinId, fromRow, Math::max);
+        LongAdder adder = pending.get(tinId);
+        return stored + (adder == null ? 0 : adder.sum());
+    }
+
+    @Scheduled(initialDelayString = "${app.views.flush-ms:5000}", fixedDelayString = "${app.views.flush-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            long start = System.currentTimeMillis();
+            // Lấy phần chênh lệch rồi trừ đúng phần đó: lượt xem đến trong lúc flush vẫn nằm lại trong adder
+            List<long[]> deltas = new ArrayList<>();
+            pending.forEach((tinId, adder) -> {
+                long delta = adder.sum();
+                if (delta > 0) {
+                    adder.add(-delta);
+                    deltas.add(new long[]{tinId, delta});
+                }
+            });
+            if (deltas.isEmpty()) return;
+
+            long views = 0;
+            String error = null;
+            for (int i = 0; i < deltas.size(); i += MERGE_CHUNK) {
+                List<long[]> chunk = deltas.subList(i, Math.min(i + MERGE_CHUNK, deltas.size()));
+                try {
+                    jobRepository.mergeViewCounts(chunk).forEach((tinId, total) -> persisted.merge(tinId, total, Math::max));
+                    for (long[] d : chunk) views += d[1];
+                } catch (Exception e) {
+                    // Trả lại phần chưa ghi được để lần sau ghi tiếp
+                    for (long[] d : chunk) pending.computeIfAbsent((int) d[0], id -> new LongAdder()).add(d[1]);
+                    failures.increment();
+                    error = e.getMessage();
+                }
+            }
+            if (error != null) System.err.println("❌ Ghi lượt xem thất bại, sẽ thử lại: " + error);
+
+            totalFlushed.add(views);
+            lastFlushAt = LocalDateTime.now();
+            lastFlushJobs = deltas.size();
+            lastFlushViews = views;
+            lastFlushMillis = System.currentTimeMillis() - start;
+            lastError = error;
+        }
+    }
+
+    // Tắt ứng dụng: ghi nốt phần còn trong bộ nhớ
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        if (event.kind() == JobChangedEvent.Kind.DELETED) {
+            pending.remove(event.tinId());
+            persisted.remove(event.tinId());
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "job-views";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long unflushed = 0;
+        for (LongAdder adder : pending.values()) unflushed += adder.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("trackedJobs", pending.size());
+        m.put("unflushedViews", unflushed);
+        m.put("totalFlushedViews", totalFlushed.sum());
+        m.put("flushFailures", failures.sum());
+        m.put("lastFlushAt", lastFlushAt);
+        m.put("lastFlushJobs", lastFlushJobs);
+        m.put("lastFlushViews", lastFlushViews);
+        m.put("lastFlushMillis", lastFlushMillis);
+        m.put("lastError", lastError);
+        return m;
+    }
+}
@@ -19,6 +19,15 @@ import java.util.Collections;
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    /**
+     * Attribute của request chứa UserID lấy từ token (null nếu token không có userId).
+     */
+    public static final String USER_ID_ATTRIBUTE = "jwtUserId";
+
+    // EventSource của trình duyệt không đặt được header: kênh SSE nhận token qua ?access_token=
+    private static final String STREAM_PATH = "/api/notifications/stream/";
+    private static final String TOKEN_PARAM = "access_token";
+
     private final JwtService jwtService;
 
     @Override
@@ -29,13 +38,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        String token;
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            token = authHeader.substring(7);
+        } else if (request.getRequestURI().startsWith(STREAM_PATH) && request.getParameter(TOKEN_PARAM) != null) {
+            token = request.getParameter(TOKEN_PARAM);
+        } else {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String token = authHeader.substring(7);
-
         if (token.isBlank() || token.split("\\.").length != 3) {
             filterChain.doFilter(request, response);
             return;
@@ -62,6 +74,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(USER_ID_ATTRIBUTE, jwtService.extractUserId(token));
 
                 System.out.println("✅ Gán quyền cho user: " + username + " → " + normalizedRole);
             }
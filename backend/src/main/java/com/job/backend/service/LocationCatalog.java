@@ -0,0 +1,104 @@
+package com.job.backend.service;
+
+import com.job.backend.util.TextNormalizer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Danh mục tỉnh/thành (locations/vn-provinces.tsv) + chuẩn hóa địa điểm nhập tự do về mã.
+ * "HCM", "TP.HCM", "Quận 1, Hồ Chí Minh", "Sài Gòn" -> "79".
+ * Chỉ chuẩn hóa tới cấp tỉnh/thành; chuỗi không nhận ra (vd "Toàn quốc", "Remote") -> null.
+ */
+@Component
+public class LocationCatalog {
+
+    private static final String RESOURCE = "locations/vn-provinces.tsv";
+
+    /**
+     * Một tỉnh/thành: mã, tên hiển thị và mọi cách viết (đã chuẩn hóa, gồm cả tên).
+     */
+    public record Location(String code, String name, List<String> keys) {
+    }
+
+    private final Map<String, Location> byCode = new LinkedHashMap<>();
+    // cách viết đã chuẩn hóa -> mã, xếp theo độ dài giảm dần để ưu tiên khớp dài nhất
+    private final List<Map.Entry<String, String>> aliases = new ArrayList<>();
+
+    public LocationCatalog() {
+        load();
+    }
+
+    public List<Location> all() {
+        return Collections.unmodifiableList(new ArrayList<>(byCode.values()));
+    }
+
+    public Location find(String code) {
+        return code == null ? null : byCode.get(code);
+    }
+
+    /**
+     * Mã tỉnh/thành của chuỗi địa điểm tự do (null nếu không nhận ra).
+     * Khớp theo từ trọn vẹn trên dạng bỏ dấu; nhiều tên cùng khớp thì lấy tên dài nhất,
+     * bằng nhau thì lấy tên xuất hiện sau cùng (địa chỉ thường ghi tỉnh/thành ở cuối).
+     */
+    public String canonicalize(String text) {
+        String normalized = TextNormalizer.normalize(text);
+        if (normalized.isEmpty()) return null;
+        if (byCode.containsKey(normalized)) return normalized;
+
+        String haystack = " " + normalized + " ";
+        String code = null;
+        int bestLength = 0;
+        int bestPos = -1;
+        for (Map.Entry<String, String> alias : aliases) {
+            int length = alias.getKey().length();
+            if (length < bestLength) break;
+            int pos = haystack.lastIndexOf(" " + alias.getKey() + " ");
+            if (pos > bestPos) {
+                code = alias.getValue();
+                bestLength = length;
+                bestPos = pos;
+            }
+        }
+        return code;
+    }
+
+    private void load() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(RESOURCE).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] cols = line.split("\t");
+                String code = cols[0].trim();
+                String name = cols[1].trim();
+
+                List<String> keys = new ArrayList<>();
+                keys.add(TextNormalizer.normalize(name));
+                if (cols.length > 2) {
+                    for (String alias : cols[2].split(";")) {
+                        String key = TextNormalizer.normalize(alias);
+                        if (!key.isEmpty() && !keys.contains(key)) keys.add(key);
+                    }
+                }
+                byCode.put(code, new Location(code, name, List.copyOf(keys)));
+                keys.forEach(key -> aliases.add(Map.entry(key, code)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không đọc được " + RESOURCE, e);
+        }
+        aliases.sort(Comparator.comparingInt((Map.Entry<String, String> e) -> e.getKey().length()).reversed());
+    }
+}
@@ -0,0 +1,97 @@
+package com.job.backend.service;
+
+import com.job.backend.repository.JobRepository;
+import com.job.backend.util.PrefixTrie;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gợi ý địa điểm theo tiền tố (GET /api/jobs/locations/suggest?prefix=).
+ * Trie chứa tên + mọi cách viết của 63 tỉnh/thành, trọng số = số tin đang hiển thị ở đó,
+ * nên nơi có nhiều việc được gợi ý trước. Số tin được cập nhật qua JobChangedEvent.
+ */
+@Component
+public class LocationIndex extends AbstractJobIndex {
+
+    private final LocationCatalog catalog;
+    private final PrefixTrie<String> trie = new PrefixTrie<>();
+    private final Map<String, Integer> jobCounts = new HashMap<>();
+    private final Map<Integer, String> codes = new HashMap<>();
+
+    public LocationIndex(JobRepository jobRepository, LocationCatalog catalog) {
+        super(jobRepository);
+        this.catalog = catalog;
+        clear();
+    }
+
+    /**
+     * Tối đa {@code limit} tỉnh/thành khớp tiền tố (bỏ dấu, không phân biệt hoa thường).
+     * Dùng được cả khi chưa nạp xong số tin (khi đó xếp theo thứ tự danh mục).
+     */
+    public List<Map<String, Object>> suggest(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix);
+        if (key.isEmpty()) return List.of();
+        // "ha " vẫn phải khớp "ha noi": normalize đã bỏ khoảng trắng cuối
+        if (prefix.endsWith(" ")) key += " ";
+
+        lock.readLock().lock();
+        try {
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (String code : trie.topK(key, limit)) {
+                LocationCatalog.Location location = catalog.find(code);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("MaDiaDiem", code);
+                item.put("TenDiaDiem", location.name());
+                item.put("SoTin", jobCounts.getOrDefault(code, 0));
+                result.add(item);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected String name() {
+        return "LocationIndex";
+    }
+
+    @Override
+    protected void clear() {
+        jobCounts.clear();
+        codes.clear();
+        for (LocationCatalog.Location location : catalog.all()) {
+            reweight(location.code());
+        }
+    }
+
+    @Override
+    protected void put(int tinId, Map<String, Object> row) {
+        String code = (String) row.get("MaDiaDiem");
+        if (code == null || catalog.find(code) == null) return;
+        codes.put(tinId, code);
+        jobCounts.merge(code, 1, Integer::sum);
+        reweight(code);
+    }
+
+    @Override
+    protected void remove(int tinId) {
+        String code = codes.remove(tinId);
+        if (code == null) return;
+        jobCounts.computeIfPresent(code, (k, v) -> v > 1 ? v - 1 : null);
+        reweight(code);
+    }
+
+    private void reweight(String code) {
+        long weight = jobCounts.getOrDefault(code, 0);
+        for (String key : catalog.find(code).keys()) {
+            trie.put(key, code, weight);
+        }
+    }
+}
@@ -1,48 +1,323 @@
 package com.job.backend.service;
 
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import com.sun.mail.smtp.SMTPSenderFailedException;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Gửi email qua hàng đợi trong bộ nhớ, không chạy trong luồng HTTP.
+ * - sendMail chỉ dựng thư và xếp hàng (tối đa app.mail.queue-capacity thư), trả về ngay.
+ * - app.mail.workers luồng gửi, mỗi luồng giữ 1 kết nối SMTP đã xác thực và dùng lại cho nhiều thư
+ *   (mỗi lượt lấy tối đa app.mail.batch-size thư); rảnh quá app.mail.idle-close-ms thì đóng kết nối.
+ * - Gửi lỗi thì thử lại sau app.mail.backoff-ms x 2^(lần thử - 1) (có nhiễu, tối đa 5 phút);
+ *   quá app.mail.max-attempts lần thì chuyển vào danh sách thư chết (xem /api/metrics/mail).
+ *   Lỗi vĩnh viễn (máy chủ trả 5xx, địa chỉ bị từ chối) vào thẳng danh sách thư chết, không thử lại.
+ * Máy chủ SMTP cấu hình qua spring.mail.host/port; để trống spring.mail.username thì không xác thực,
+ * app.mail.starttls=false để chạy với SMTP giả lập cục bộ (MailHog, GreenMail...).
+ */
 @Service
-public class MailService {
+public class MailService implements MetricsSource {
 
-    @Value("${spring.mail.username}")
-    private String username;
+    private static final long MAX_BACKOFF_MS = 300_000;
+    private static final int DEAD_LETTER_LIMIT = 100;
 
-    @Value("${spring.mail.password}")
-    private String password;
+    /**
+     * Thư trong hàng đợi: thời điểm được gửi (dueAt) tăng dần theo số lần thử.
+     */
+    private static final class Envelope implements Delayed {
+        final String to;
+        final MimeMessage message;
+        final long createdAt = System.currentTimeMillis();
+        volatile long dueAt = createdAt;
+        int attempts;
+        String lastError;
 
-    public void sendMail(String to, String subject, String body) {
-        try {
-            Properties props = new Properties();
-            props.put("mail.smtp.auth", "true");
-            props.put("mail.smtp.starttls.enable", "true");
-            props.put("mail.smtp.host", "smtp.gmail.com");
-            props.put("mail.smtp.port", "587");
-
-            Session session = Session.getInstance(props, new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(username, password);
-                }
-            });
+        Envelope(String to, MimeMessage message) {
+            this.to = to;
+            this.message = message;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((Envelope) other).dueAt);
+        }
+    }
+
+    private final String username;
+    private final String password;
+    private final String from;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long idleCloseMs;
+    private final Session session;
+
+    private final DelayQueue<Envelope> queue = new DelayQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder permanentFailures = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private volatile long lastSendMillis;
+    private volatile String lastError;
+    private final Deque<Map<String, Object>> deadLetters = new ArrayDeque<>();
+
+    public MailService(@Value("${spring.mail.host:smtp.gmail.com}") String host,
+                       @Value("${spring.mail.port:587}") int port,
+                       @Value("${spring.mail.username:}") String username,
+                       @Value("${spring.mail.password:}") String password,
+                       @Value("${app.mail.starttls:true}") boolean startTls,
+                       @Value("${app.mail.workers:2}") int workerCount,
+                       @Value("${app.mail.queue-capacity:10000}") int capacity,
+                       @Value("${app.mail.batch-size:20}") int batchSize,
+                       @Value("${app.mail.max-attempts:5}") int maxAttempts,
+                       @Value("${app.mail.backoff-ms:2000}") long backoffMs,
+                       @Value("${app.mail.idle-close-ms:30000}") long idleCloseMs) {
+        this.username = username;
+        this.password = password;
+        this.from = username.isBlank() ? "no-reply@localhost" : username;
+        this.capacity = capacity;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.backoffMs = backoffMs;
+        this.idleCloseMs = idleCloseMs;
+
+        Properties props = new Properties();
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.auth", String.valueOf(!username.isBlank()));
+        props.put("mail.smtp.starttls.enable", String.valueOf(startTls));
+        props.put("mail.smtp.connectiontimeout", "10000");
+        props.put("mail.smtp.timeout", "20000");
+        props.put("mail.smtp.writetimeout", "20000");
+        this.session = Session.getInstance(props);
 
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(username, "Recruitment System"));
+        for (int i = 0; i < Math.max(workerCount, 1); i++) {
+            Thread t = new Thread(this::runWorker, "mail-sender-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    /**
+     * Xếp 1 thư vào hàng đợi gửi. Trả về false nếu địa chỉ không hợp lệ hoặc hàng đợi đầy.
+     */
+    public boolean sendMail(String to, String subject, String body) {
+        MimeMessage message;
+        try {
+            message = new MimeMessage(session);
+            message.setFrom(new InternetAddress(from, "Recruitment System"));
             message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
-            message.setSubject(subject);
+            message.setSubject(subject, "UTF-8");
             message.setContent(body, "text/html; charset=UTF-8");
+            message.saveChanges();
+        } catch (Exception e) {
+            System.err.println("❌ Không tạo được email tới " + to + ": " + e.getMessage());
+            rejected.increment();
+            return false;
+        }
+
+        if (!running || queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            System.err.println("❌ Hàng đợi email đầy, bỏ thư tới " + to);
+            return false;
+        }
+        queue.put(new Envelope(to, message));
+        accepted.increment();
+        return true;
+    }
+
+    // Vòng lặp của 1 luồng gửi: lấy thư đến hạn theo lô, gửi trên kết nối đang giữ
+    private void runWorker() {
+        Transport transport = null;
+        List<Envelope> batch = new ArrayList<>(batchSize);
+        while (running || queued.get() > 0) {
+            try {
+                Envelope first = queue.poll(idleCloseMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    transport = close(transport);
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                for (Envelope envelope : batch) {
+                    transport = deliver(transport, envelope);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        close(transport);
+    }
 
-            Transport.send(message);
-            System.out.println("✅ Email sent successfully to " + to);
+    // Gửi 1 thư; lỗi thì đóng kết nối (lần sau mở lại) và lên lịch thử lại
+    private Transport deliver(Transport transport, Envelope envelope) {
+        long start = System.nanoTime();
+        try {
+            if (transport == null || !transport.isConnected()) {
+                transport = close(transport);
+                transport = session.getTransport("smtp");
+                if (username.isBlank()) {
+                    transport.connect();
+                } else {
+                    transport.connect(username, password);
+                }
+                connections.increment();
+            }
+            transport.sendMessage(envelope.message, envelope.message.getAllRecipients());
+
+            long nanos = System.nanoTime() - start;
+            sendNanos.add(nanos);
+            lastSendMillis = nanos / 1_000_000;
+            sent.increment();
+            queued.decrementAndGet();
+            return transport;
         } catch (Exception e) {
-            System.err.println("❌ Failed to send email: " + e.getMessage());
-            e.printStackTrace();
+            failedAttempts.increment();
+            lastError = e.getMessage();
+            retryOrDeadLetter(envelope, e);
+            return close(transport);
+        }
+    }
+
+    private void retryOrDeadLetter(Envelope envelope, Exception e) {
+        envelope.attempts++;
+        envelope.lastError = e.getMessage();
+        boolean permanent = isPermanent(e);
+        if (permanent) permanentFailures.increment();
+        if (permanent || envelope.attempts >= maxAttempts || !running) {
+            queued.decrementAndGet();
+            deadLettered.increment();
+            System.err.println("❌ Gửi email tới " + envelope.to + " thất bại sau " + envelope.attempts
+                    + " lần: " + e.getMessage());
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("to", envelope.to);
+            item.put("attempts", envelope.attempts);
+            item.put("error", envelope.lastError);
+            item.put("at", LocalDateTime.now());
+            synchronized (deadLetters) {
+                if (deadLetters.size() == DEAD_LETTER_LIMIT) deadLetters.removeFirst();
+                deadLetters.addLast(item);
+            }
+            return;
+        }
+        long delay = Math.min(backoffMs << (envelope.attempts - 1), MAX_BACKOFF_MS);
+        delay += ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+        envelope.dueAt = System.currentTimeMillis() + delay;
+        queue.put(envelope);
+    }
+
+    /**
+     * Lỗi gửi lại cũng vô ích: mã SMTP 5xx (người nhận/người gửi bị từ chối, thư bị chặn...), hoặc
+     * SendFailedException không kèm mã (không còn địa chỉ hợp lệ). 4xx, lỗi kết nối, hết thời gian thì thử lại.
+     */
+    static boolean isPermanent(Exception e) {
+        int code = -1;
+        for (Exception ex = e; ex != null; ex = ex instanceof MessagingException me ? me.getNextException() : null) {
+            int c = smtpReturnCode(ex);
+            if (c >= 500) return true;
+            if (c >= 0) code = c;
+        }
+        return code < 0 && e instanceof SendFailedException;
+    }
+
+    private static int smtpReturnCode(Exception e) {
+        if (e instanceof SMTPSendFailedException s) return s.getReturnCode();
+        if (e instanceof SMTPAddressFailedException a) return a.getReturnCode();
+        if (e instanceof SMTPSenderFailedException f) return f.getReturnCode();
+        return -1;
+    }
+
+    private static Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // kết nối đã hỏng, bỏ qua
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tắt ứng dụng: ngừng nhận thư mới, chờ các luồng gửi nốt thư đã đến hạn (tối đa 30s).
+     * Thư đang chờ thử lại sẽ bị bỏ.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        long deadline = System.currentTimeMillis() + 30_000;
+        for (Thread t : workers) {
+            t.join(Math.max(deadline - System.currentTimeMillis(), 1));
+            t.interrupt();
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "mail";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long count = sent.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("queueDepth", queued.get());
+        m.put("queueCapacity", capacity);
+        m.put("workers", workers.size());
+        m.put("accepted", accepted.sum());
+        m.put("rejected", rejected.sum());
+        m.put("sent", count);
+        m.put("failedAttempts", failedAttempts.sum());
+        m.put("deadLettered", deadLettered.sum());
+        m.put("permanentFailures", permanentFailures.sum());
+        m.put("connectionsOpened", connections.sum());
+        m.put("avgSendMillis", count == 0 ? 0 : sendNanos.sum() / count / 1_000_000.0);
+        m.put("lastSendMillis", lastSendMillis);
+        m.put("lastError", lastError);
+        synchronized (deadLetters) {
+            m.put("recentDeadLetters", new ArrayList<>(deadLetters));
         }
+        return m;
     }
 }
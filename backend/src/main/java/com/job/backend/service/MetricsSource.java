@@ -0,0 +1,15 @@
+package com.job.backend.service;
+
+import java.util.Map;
+
+/**
+ * Thành phần có số liệu vận hành (cache, hàng đợi, job nền...) để xem qua /api/metrics.
+ */
+public interface MetricsSource {
+
+    /** Tên nhóm số liệu, dùng làm key trong /api/metrics. */
+    String metricsName();
+
+    /** Ảnh chụp số liệu hiện tại. */
+    Map<String, Object> metrics();
+}
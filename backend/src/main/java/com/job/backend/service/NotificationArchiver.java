@@ -0,0 +1,119 @@
+package com.job.backend.service;
+
+import com.job.backend.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Job nền chuyển thông báo cũ hơn app.notify.archive-after-days ngày từ Notification sang NotificationArchive,
+ * để bảng đang dùng chỉ còn thông báo gần đây.
+ * - Mỗi lô là 1 câu DELETE TOP (N) ... OUTPUT INTO (1 transaction ngắn), nghỉ giữa các lô để không giữ khóa lâu.
+ * - Thông báo chưa đọc bị lưu trữ được trừ khỏi bộ đếm chưa đọc (UnreadCounter).
+ * - Số liệu từng lượt chạy xem ở /api/metrics/notification-archive.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationArchiver implements MetricsSource {
+
+    private final NotificationRepository repository;
+    private final UnreadCounter unreadCounter;
+
+    @Value("${app.notify.archive-after-days:90}")
+    private int archiveAfterDays;
+
+    @Value("${app.notify.archive-batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.notify.archive-pause-ms:100}")
+    private long pauseMillis;
+
+    private volatile LocalDateTime lastRunAt;
+    private volatile int lastRunArchived;
+    private volatile int lastRunBatches;
+    private volatile long lastRunMillis;
+    private volatile long maxBatchMillis;
+    private volatile String lastError;
+    private volatile long totalArchived;
+    private volatile long runs;
+
+    @Scheduled(initialDelayString = "${app.notify.archive-initial-delay-ms:120000}",
+            fixedDelayString = "${app.notify.archive-interval-ms:3600000}")
+    public void archiveOldNotifications() {
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(archiveAfterDays);
+        int archived = 0;
+        int batches = 0;
+        long slowest = 0;
+        String error = null;
+        try {
+            // Chốt biên NotiID 1 lần mỗi lượt để các lô xóa theo khoảng khóa chính
+            Integer beforeId = repository.findFirstIdCreatedFrom(cutoff);
+            while (true) {
+                long batchStart = System.currentTimeMillis();
+                List<Map<String, Object>> rows = repository.archiveBatch(cutoff, beforeId, batchSize);
+                slowest = Math.max(slowest, System.currentTimeMillis() - batchStart);
+                batches++;
+
+                Map<Integer, Integer> unreadByUser = new HashMap<>();
+                for (Map<String, Object> row : rows) {
+                    if (!Boolean.TRUE.equals(row.get("IsRead"))) {
+                        unreadByUser.merge(((Number) row.get("UserID")).intValue(), 1, Integer::sum);
+                    }
+                }
+                unreadByUser.forEach(unreadCounter::onRead);
+
+                archived += rows.size();
+                if (rows.size() < batchSize) break;
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Bị dừng giữa chừng";
+        } catch (Exception e) {
+            error = e.getMessage();
+            System.err.println("❌ Lưu trữ thông báo cũ thất bại: " + e.getMessage());
+        }
+
+        lastRunAt = LocalDateTime.now();
+        lastRunArchived = archived;
+        lastRunBatches = batches;
+        lastRunMillis = System.currentTimeMillis() - start;
+        maxBatchMillis = slowest;
+        lastError = error;
+        totalArchived += archived;
+        runs++;
+        if (archived > 0) {
+            System.out.println("✅ Đã lưu trữ " + archived + " thông báo cũ (" + batches + " lô, "
+                    + lastRunMillis + " ms)");
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "notification-archive";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("runs", runs);
+        m.put("totalArchived", totalArchived);
+        m.put("lastRunAt", lastRunAt);
+        m.put("lastRunArchived", lastRunArchived);
+        m.put("lastRunBatches", lastRunBatches);
+        m.put("lastRunMillis", lastRunMillis);
+        m.put("lastRunMaxBatchMillis", maxBatchMillis);
+        m.put("lastError", lastError);
+        m.put("archiveAfterDays", archiveAfterDays);
+        m.put("batchSize", batchSize);
+        return m;
+    }
+}
@@ -1,9 +1,12 @@
 package com.job.backend.service;
 
 import com.job.backend.repository.NotificationRepository;
+import com.job.backend.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,6 +15,7 @@ import java.util.Map;
 public class NotificationService {
 
     private final NotificationRepository repository;
+    private final UnreadCounter unreadCounter;
 
     /**
      * Lấy danh sách thông báo cho user (có thể lọc unread)
@@ -20,13 +24,65 @@ public class NotificationService {
         return repository.getByUserId(userId, onlyUnread);
     }
 
+    /**
+     * 1 trang lịch sử thông báo (mới nhất trước), phân trang keyset.
+     * Trả kèm nextCursor (null khi đã hết) và readCursor = vị trí thông báo mới nhất của trang,
+     * gửi lại cho markAllRead để đánh dấu đã đọc mọi thông báo đã thấy.
+     *
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public Map<String, Object> getPage(int userId, boolean onlyUnread, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Map<String, Object>> rows = repository.listPage(userId, onlyUnread, after, size + 1);
+
+        List<Map<String, Object>> items = rows.size() > size ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (rows.size() > size) {
+            nextCursor = cursorOf(items.get(items.size() - 1));
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("size", size);
+        resp.put("items", items);
+        resp.put("count", items.size());
+        resp.put("nextCursor", nextCursor);
+        resp.put("readCursor", items.isEmpty() ? null : cursorOf(items.get(0)));
+        return resp;
+    }
+
+    /**
+     * Đánh dấu đã đọc mọi thông báo từ con trỏ trở về trước (cursor rỗng = tất cả), trả về số thông báo đã đổi.
+     *
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public int markAllRead(int userId, String upTo) {
+        int updated = repository.markAllReadUpTo(userId, KeysetCursor.decode(upTo));
+        if (updated > 0) unreadCounter.onRead(userId, updated);
+        return updated;
+    }
+
+    private static String cursorOf(Map<String, Object> row) {
+        return KeysetCursor.encode((Timestamp) row.get("CreatedAt"), ((Number) row.get("NotiID")).intValue());
+    }
+
+    /**
+     * Số thông báo chưa đọc (badge), đọc từ bộ đếm trong bộ nhớ
+     */
+    public int getUnreadCount(int userId) {
+        return unreadCounter.get(userId);
+    }
+
     /**
      * Đánh dấu thông báo là đã đọc
      */
     public String markAsRead(int notiId) {
-        int updated = repository.markAsRead(notiId);
-        return (updated > 0)
-                ? "Thông báo #" + notiId + " đã được đánh dấu là đã đọc."
-                : "Không tìm thấy thông báo #" + notiId;
+        Map<String, Object> updated = repository.markAsRead(notiId);
+        if (updated == null) {
+            return "Không tìm thấy thông báo #" + notiId;
+        }
+        if (!Boolean.TRUE.equals(updated.get("DaDocTruocDo"))) {
+            unreadCounter.onRead(((Number) updated.get("UserID")).intValue(), 1);
+        }
+        return "Thông báo #" + notiId + " đã được đánh dấu là đã đọc.";
     }
 }
@@ -0,0 +1,274 @@
+package com.job.backend.service;
+
+import com.job.backend.event.NotificationCreatedEvent;
+import com.job.backend.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kênh đẩy thông báo realtime (Server-Sent Events) thay cho việc frontend gọi lại
+ * GET /api/notifications/user/{userId} liên tục.
+ * - Mỗi kết nối là 1 SseEmitter (request async của servlet): lúc rảnh không giữ luồng nào,
+ *   chỉ giữ socket; tối đa app.notify.max-streams-per-user kết nối mỗi user (mở thêm thì đóng cái cũ nhất).
+ * - NotificationCreatedEvent (phát sau commit) được gửi tới các kết nối của user trên app.notify.workers
+ *   luồng đẩy; cùng 1 user luôn đi qua cùng 1 luồng nên thông báo đến theo thứ tự commit. Thứ tự này
+ *   không trùng thứ tự NotiID (IDENTITY cấp số lúc ghi, giao dịch số nhỏ có thể commit sau), nên mỗi kết nối
+ *   nhớ app.notify.dedupe-window NotiID đã gửi gần nhất để bỏ trùng thay vì so với NotiID lớn nhất.
+ * - Kết nối lại với Last-Event-ID (NotiID cuối đã nhận): phát lại tối đa app.notify.replay-limit thông báo
+ *   từ DB (IX_Notification_UserID_NotiID) trước khi nhận tiếp thông báo mới: mọi NotiID lớn hơn, cộng các
+ *   NotiID nhỏ hơn ghi trong app.notify.commit-lag-ms trước thông báo đó (có thể commit sau khi client đã
+ *   nhận nó). Không sót, nhưng có thể gửi lại vài thông báo client đã có: client gộp theo id sự kiện (NotiID).
+ *   Lỡ nhiều hơn giới hạn thì gửi sự kiện "reload" để client tải lại danh sách.
+ * - Cứ app.notify.heartbeat-ms gửi 1 dòng comment để proxy không cắt kết nối và phát hiện client đã đi.
+ */
+@Service
+public class NotificationStreamService implements MetricsSource {
+
+    private static final String EVENT_NOTIFICATION = "notification";
+    private static final String EVENT_RELOAD = "reload";
+
+    /**
+     * 1 kết nối SSE; gửi tuần tự (synchronized) và bỏ qua NotiID đã gửi gần đây.
+     */
+    private final class Stream {
+        final int userId;
+        final SseEmitter emitter;
+        // NotiID đã gửi, cũ nhất trước; giữ tối đa dedupeWindow phần tử
+        final Set<Integer> recent = new LinkedHashSet<>();
+        boolean closed;
+
+        Stream(int userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        synchronized boolean send(int notiId, Map<String, Object> row) {
+            if (closed) return false;
+            if (recent.contains(notiId)) return true;
+            try {
+                emitter.send(SseEmitter.event().id(String.valueOf(notiId)).name(EVENT_NOTIFICATION).data(row));
+                remember(notiId);
+                return true;
+            } catch (Exception e) {
+                fail(e);
+                return false;
+            }
+        }
+
+        private void remember(int notiId) {
+            recent.add(notiId);
+            if (recent.size() > dedupeWindow) {
+                Iterator<Integer> oldest = recent.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+
+        synchronized boolean sendEvent(SseEmitter.SseEventBuilder event) {
+            if (closed) return false;
+            try {
+                emitter.send(event);
+                return true;
+            } catch (Exception e) {
+                fail(e);
+                return false;
+            }
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            emitter.complete();
+        }
+
+        // Client đã ngắt: bỏ kết nối, servlet container tự dọn request async
+        private void fail(Exception e) {
+            closed = true;
+            dropped.increment();
+            detach(this);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private final NotificationRepository repository;
+    private final long timeoutMs;
+    private final int maxStreamsPerUser;
+    private final int replayLimit;
+    private final int commitLagMillis;
+    private final int dedupeWindow;
+
+    private final Map<Integer, List<Stream>> streams = new ConcurrentHashMap<>();
+    private final ExecutorService[] pushers;
+    private final AtomicInteger open = new AtomicInteger();
+
+    private final LongAdder connected = new LongAdder();
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public NotificationStreamService(NotificationRepository repository,
+                                     @Value("${app.notify.sse-timeout-ms:1800000}") long timeoutMs,
+                                     @Value("${app.notify.max-streams-per-user:5}") int maxStreamsPerUser,
+                                     @Value("${app.notify.replay-limit:100}") int replayLimit,
+                                     @Value("${app.notify.commit-lag-ms:30000}") int commitLagMillis,
+                                     @Value("${app.notify.dedupe-window:256}") int dedupeWindow,
+                                     @Value("${app.notify.workers:2}") int workers) {
+        this.repository = repository;
+        this.timeoutMs = timeoutMs;
+        this.maxStreamsPerUser = Math.max(maxStreamsPerUser, 1);
+        this.replayLimit = Math.max(replayLimit, 1);
+        this.commitLagMillis = Math.max(commitLagMillis, 0);
+        this.dedupeWindow = Math.max(dedupeWindow, 1);
+        this.pushers = new ExecutorService[Math.max(workers, 1)];
+        for (int i = 0; i < pushers.length; i++) {
+            String name = "notification-push-" + (i + 1);
+            pushers[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Mở kết nối SSE cho user; lastEventId (có thể null) là NotiID cuối client đã nhận.
+     */
+    public SseEmitter subscribe(int userId, Integer lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Stream stream = new Stream(userId, emitter);
+        emitter.onCompletion(() -> detach(stream));
+        emitter.onTimeout(() -> detach(stream));
+        emitter.onError(e -> detach(stream));
+
+        // Giữ khóa của kết nối trong lúc phát lại: thông báo mới đến cùng lúc phải chờ,
+        // gửi sau phần phát lại và bị bỏ nếu đã có trong đó
+        synchronized (stream) {
+            attach(stream);
+            try {
+                if (lastEventId != null) {
+                    replay(stream, lastEventId);
+                } else {
+                    stream.sendEvent(SseEmitter.event().comment("connected"));
+                }
+            } catch (RuntimeException e) {
+                detach(stream);
+                throw e;
+            }
+        }
+        return emitter;
+    }
+
+    private void replay(Stream stream, int lastEventId) {
+        List<Map<String, Object>> missed = repository.listSince(stream.userId, lastEventId, commitLagMillis,
+                replayLimit + 1);
+        if (missed.size() > replayLimit) {
+            // Client tải lại cả danh sách: các thông báo đã có trong DB lúc này không cần đẩy nữa
+            reloads.increment();
+            int latest = lastEventId;
+            for (Map<String, Object> row : missed) {
+                int notiId = ((Number) row.get("NotiID")).intValue();
+                stream.remember(notiId);
+                latest = Math.max(latest, notiId);
+            }
+            stream.sendEvent(SseEmitter.event().id(String.valueOf(latest)).name(EVENT_RELOAD)
+                    .data(Map.of("missed", missed.size())));
+            return;
+        }
+        for (Map<String, Object> row : missed) {
+            if (!stream.send(((Number) row.get("NotiID")).intValue(), row)) return;
+            replayed.increment();
+        }
+        if (missed.isEmpty()) stream.sendEvent(SseEmitter.event().comment("connected"));
+    }
+
+    @EventListener
+    public void onCreated(NotificationCreatedEvent event) {
+        if (!streams.containsKey(event.userId())) return;
+        pushers[Math.floorMod(event.userId(), pushers.length)].execute(() -> {
+            List<Stream> targets = streams.get(event.userId());
+            if (targets == null) return;
+            for (Stream stream : targets) {
+                if (stream.send(event.notiId(), event.row())) pushed.increment();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notify.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (List<Stream> list : streams.values()) {
+            for (Stream stream : list) stream.sendEvent(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    private void attach(Stream stream) {
+        connected.increment();
+        open.incrementAndGet();
+        List<Stream> list = streams.compute(stream.userId, (id, current) -> {
+            List<Stream> l = current == null ? new CopyOnWriteArrayList<>() : current;
+            l.add(stream);
+            return l;
+        });
+        // Quá số kết nối cho phép (nhiều tab/thiết bị): đóng kết nối cũ nhất
+        for (Stream oldest : list) {
+            if (list.size() <= maxStreamsPerUser) break;
+            if (list.remove(oldest)) {
+                open.decrementAndGet();
+                evicted.increment();
+                oldest.close();
+            }
+        }
+    }
+
+    private void detach(Stream stream) {
+        streams.computeIfPresent(stream.userId, (id, list) -> {
+            if (list.remove(stream)) open.decrementAndGet();
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService pusher : pushers) pusher.shutdownNow();
+        for (List<Stream> list : streams.values()) {
+            for (Stream stream : list) stream.close();
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "notification-stream";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("openStreams", open.get());
+        m.put("users", streams.size());
+        m.put("connected", connected.sum());
+        m.put("pushed", pushed.sum());
+        m.put("replayed", replayed.sum());
+        m.put("reloads", reloads.sum());
+        m.put("dropped", dropped.sum());
+        m.put("evicted", evicted.sum());
+        return m;
+    }
+}
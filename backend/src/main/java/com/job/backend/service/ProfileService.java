@@ -1,7 +1,9 @@
 package com.job.backend.service;
 
+import com.job.backend.event.ProfileChangedEvent;
 import com.job.backend.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
@@ -11,6 +13,7 @@ import java.util.Map;
 public class ProfileService {
 
     private final ProfileRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Map<String, Object> getProfileByUser(int userId) {
         Map<String, Object> profile = repository.getByUserId(userId);
@@ -19,6 +22,11 @@ public class ProfileService {
 
     public String createProfile(Map<String, Object> data) {
         int result = repository.createProfile(data);
+        if (result > 0 && data.get("userId") != null) {
+            int userId = Integer.parseInt(data.get("userId").toString());
+            Object ungVienId = repository.getByUserId(userId).get("UngVienID");
+            eventPublisher.publishEvent(new ProfileChangedEvent(((Number) ungVienId).intValue()));
+        }
         return (result > 0)
                 ? "Đã tạo hồ sơ cá nhân mới."
                 : "Không thể tạo hồ sơ.";
@@ -26,6 +34,7 @@ public class ProfileService {
 
     public String updateProfile(int ungVienId, Map<String, Object> data) {
         int result = repository.updateProfile(ungVienId, data);
+        if (result > 0) eventPublisher.publishEvent(new ProfileChangedEvent(ungVienId));
         return (result > 0)
                 ? "Đã cập nhật hồ sơ #" + ungVienId
                 : "Không tìm thấy hồ sơ #" + ungVienId;
@@ -33,6 +42,7 @@ public class ProfileService {
 
     public String deleteProfile(int ungVienId) {
         int result = repository.deleteProfile(ungVienId);
+        if (result > 0) eventPublisher.publishEvent(new ProfileChangedEvent(ungVienId));
         return (result > 0)
                 ? "Đã xóa hồ sơ #" + ungVienId
                 : "Không tìm thấy hồ sơ #" + ungVienId;
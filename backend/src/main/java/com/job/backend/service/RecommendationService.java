@@ -0,0 +1,480 @@
+package com.job.backend.service;
+
+import com.job.backend.event.ProfileChangedEvent;
+import com.job.backend.repository.JobRepository;
+import com.job.backend.repository.ProfileRepository;
+import com.job.backend.util.TextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Gợi ý việc làm cho ứng viên (GET /api/recommendations/user/{userId}).
+ * - Tin (TieuDe, YeuCau, MoTa) và hồ sơ (KyNang, KinhNghiem, HocVan) được biểu diễn bằng
+ *   vector TF-IDF thưa (từ đơn + cặp từ liền nhau, đã bỏ dấu), IDF tính trên các tin đang hiển thị.
+ * - Mỗi ứng viên giữ sẵn top-K tin có cosine cao nhất, truy vấn chỉ đọc bộ nhớ.
+ * - Tin mới/sửa/xóa (JobChangedEvent) và hồ sơ sửa (ProfileChangedEvent) được cập nhật tăng dần;
+ *   IDF của các vector cũ bị lệch dần nên dựng lại toàn bộ theo lịch (mặc định 3h30 hằng đêm).
+ * - Dựng lại chạy song song bằng fork/join; trong lúc dựng vẫn phục vụ bằng mô hình cũ.
+ *   Hồ sơ sửa trong lúc dựng được đọc lại từ DB ngoài khóa rồi áp vào mô hình mới trước khi thay thế.
+ *   Dựng lỗi thì quay lại cập nhật tăng dần trên mô hình cũ và thử dựng lại (AbstractJobIndex).
+ */
+@Service
+public class RecommendationService extends AbstractJobIndex implements MetricsSource {
+
+    private static final int PARALLEL_THRESHOLD = 64;
+    // Từ xuất hiện trong quá nửa số tin ("cong ty", "kinh nghiem"...) gần như không phân biệt được tin,
+    // lại có posting list dài nhất -> bỏ khỏi vector để việc chấm điểm không phải duyệt chúng
+    private static final double MAX_DF_RATIO = 0.5;
+    private static final int MIN_JOBS_FOR_DF_CUT = 50;
+
+    private final ProfileRepository profileRepository;
+    private final int topK;
+
+    private volatile Model model = new Model();
+    private volatile boolean bulk = true;
+    private final List<Map<String, Object>> staged = new ArrayList<>();
+    // Hồ sơ sửa trong lúc dựng -> dòng đã đọc lúc nhận sự kiện (dùng lại cho mô hình cũ nếu dựng lỗi)
+    private final Map<Integer, Map<String, Object>> pendingProfiles = new LinkedHashMap<>();
+    private volatile long lastBuildMillis = -1;
+
+    public RecommendationService(JobRepository jobRepository, ProfileRepository profileRepository,
+                                 @Value("${app.recommend.top-k:20}") int topK) {
+        super(jobRepository);
+        this.profileRepository = profileRepository;
+        this.topK = topK;
+    }
+
+    /**
+     * Vector thưa đã chuẩn hóa L2.
+     */
+    private record Vec(String[] terms, float[] weights) {
+    }
+
+    private record Match(int tinId, float score) {
+    }
+
+    private record JobDoc(Vec vec, Map<String, Object> summary) {
+    }
+
+    /**
+     * Tin được gợi ý cho ứng viên, điểm phù hợp giảm dần (rỗng nếu chưa có hồ sơ / chưa có dữ liệu).
+     */
+    public List<Map<String, Object>> getForUser(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            Model m = model;
+            List<Match> matches = m.recommendations.getOrDefault(userId, List.of());
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Match match : matches) {
+                if (result.size() >= limit) break;
+                JobDoc job = m.jobs.get(match.tinId());
+                if (job == null) continue;
+                Map<String, Object> item = new LinkedHashMap<>(job.summary());
+                item.put("DiemPhuHop", Math.round(match.score() * 1000) / 1000.0);
+                result.add(item);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(cron = "${app.recommend.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onProfileChanged(ProfileChangedEvent event) {
+        Map<String, Object> row = profileRepository.findMatchingProfile(event.ungVienId());
+        lock.writeLock().lock();
+        try {
+            if (bulk) {
+                pendingProfiles.put(event.ungVienId(), row);
+            } else {
+                model.putProfile(event.ungVienId(), row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected String name() {
+        return "RecommendationService";
+    }
+
+    // Khi dựng lại: chỉ gom dữ liệu, mô hình đang phục vụ giữ nguyên tới lúc loaded() thay thế
+    @Override
+    protected void clear() {
+        staged.clear();
+        bulk = true;
+    }
+
+    @Override
+    protected void put(int tinId, Map<String, Object> row) {
+        if (bulk) {
+            staged.add(row);
+        } else {
+            model.putJob(tinId, row);
+        }
+    }
+
+    @Override
+    protected void remove(int tinId) {
+        if (!bulk) model.removeJob(tinId);
+    }
+
+    // Dựng lỗi: bỏ dữ liệu đang gom, mô hình cũ tiếp tục phục vụ và nhận cập nhật tăng dần:
+    // hồ sơ sửa trong lúc dựng áp bằng dòng đã đọc, tin đổi nhận tiếp qua appliesWhileFailed()
+    @Override
+    protected void loadFailed() {
+        bulk = false;
+        pendingProfiles.forEach(model::putProfile);
+        pendingProfiles.clear();
+    }
+
+    // Mô hình cũ vẫn được dùng khi dựng lỗi: tin hết hạn/xóa/sửa phải tiếp tục được áp vào
+    @Override
+    protected boolean appliesWhileFailed() {
+        return true;
+    }
+
+    @Override
+    protected void loaded() {
+        long start = System.currentTimeMillis();
+        Model next = build(staged);
+        staged.clear();
+
+        // Mô hình mới chưa công bố nên sửa không cần khóa; chỉ lấy danh sách hồ sơ chờ và thay mô hình dưới khóa.
+        // Đọc DB ngoài khóa, lặp tới khi không còn hồ sơ nào sửa thêm trong lúc đọc.
+        List<Integer> changed = drainPendingProfiles(next);
+        while (!changed.isEmpty()) {
+            for (Integer ungVienId : changed) next.putProfile(ungVienId, profileRepository.findMatchingProfile(ungVienId));
+            changed = drainPendingProfiles(next);
+        }
+        lastBuildMillis = System.currentTimeMillis() - start;
+        System.out.println("✅ " + name() + ": " + next.jobs.size() + " tin, "
+                + next.profiles.size() + " hồ sơ, dựng trong " + lastBuildMillis + " ms");
+    }
+
+    // Lấy các hồ sơ sửa trong lúc dựng; không còn hồ sơ nào thì công bố mô hình mới ngay trong cùng khóa
+    private List<Integer> drainPendingProfiles(Model next) {
+        lock.writeLock().lock();
+        try {
+            if (pendingProfiles.isEmpty()) {
+                model = next;
+                bulk = false;
+                return List.of();
+            }
+            List<Integer> changed = new ArrayList<>(pendingProfiles.keySet());
+            pendingProfiles.clear();
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dựng mô hình mới từ đầu. Các bước nặng (tách từ, tính vector, chấm điểm từng hồ sơ)
+     * chạy song song trên ForkJoinPool; các bảng băm chỉ được ghi ở luồng hiện tại.
+     */
+    @SuppressWarnings("unchecked")
+    private Model build(List<Map<String, Object>> jobRows) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Model m = new Model();
+
+        int n = jobRows.size();
+        Map<String, Integer>[] jobTf = new Map[n];
+        pool.invoke(new ParallelRange(0, n, i -> jobTf[i] = jobTerms(jobRows.get(i))));
+        for (Map<String, Integer> tf : jobTf) {
+            tf.keySet().forEach(term -> m.df.merge(term, 1, Integer::sum));
+        }
+        m.jobCount = n;
+
+        Vec[] jobVecs = new Vec[n];
+        pool.invoke(new ParallelRange(0, n, i -> jobVecs[i] = m.weigh(jobTf[i])));
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> row = jobRows.get(i);
+            m.addJobVector(((Number) row.get("TinID")).intValue(), new JobDoc(jobVecs[i], summary(row)));
+        }
+
+        List<Map<String, Object>> profileRows = new ArrayList<>();
+        profileRepository.streamMatchingProfiles(profileRows::add);
+        int p = profileRows.size();
+        Vec[] profileVecs = new Vec[p];
+        List<Match>[] tops = new List[p];
+        pool.invoke(new ParallelRange(0, p, i -> {
+            profileVecs[i] = m.weigh(profileTerms(profileRows.get(i)));
+            tops[i] = m.score(profileVecs[i]);
+        }));
+        for (int i = 0; i < p; i++) {
+            Map<String, Object> row = profileRows.get(i);
+            m.addProfile(((Number) row.get("UngVienID")).intValue(), ((Number) row.get("UserID")).intValue(),
+                    profileVecs[i], tops[i]);
+        }
+        return m;
+    }
+
+    /**
+     * Toàn bộ dữ liệu gợi ý. Chỉ sửa dưới write lock (hoặc khi chưa được công bố).
+     */
+    private final class Model {
+        final Map<String, Integer> df = new HashMap<>();
+        int jobCount;
+        final Map<Integer, JobDoc> jobs = new HashMap<>();
+        final Map<String, Map<Integer, Float>> jobPostings = new HashMap<>();
+        final Map<Integer, Vec> profiles = new HashMap<>();            // UserID -> vector
+        final Map<Integer, Integer> profileUsers = new HashMap<>();    // UngVienID -> UserID
+        final Map<String, Map<Integer, Float>> profilePostings = new HashMap<>();
+        final Map<Integer, List<Match>> recommendations = new HashMap<>();
+        final Map<Integer, Set<Integer>> holders = new HashMap<>();    // TinID -> UserID đang có tin trong top-K
+
+        // TF log hóa * IDF, chuẩn hóa L2; bỏ từ không có trong tin nào (không thể khớp) và từ quá phổ biến
+        Vec weigh(Map<String, Integer> tf) {
+            List<String> terms = new ArrayList<>(tf.size());
+            List<Float> weights = new ArrayList<>(tf.size());
+            int maxDf = jobCount < MIN_JOBS_FOR_DF_CUT ? Integer.MAX_VALUE : (int) (jobCount * MAX_DF_RATIO);
+            double norm = 0;
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                Integer d = df.get(e.getKey());
+                if (d == null || d == 0 || d > maxDf) continue;
+                double w = (1 + Math.log(e.getValue())) * Math.log(1 + (double) Math.max(jobCount, 1) / d);
+                terms.add(e.getKey());
+                weights.add((float) w);
+                norm += w * w;
+            }
+            float[] arr = new float[weights.size()];
+            double len = Math.sqrt(norm);
+            for (int i = 0; i < arr.length; i++) arr[i] = len == 0 ? 0 : (float) (weights.get(i) / len);
+            return new Vec(terms.toArray(String[]::new), arr);
+        }
+
+        // Cosine của hồ sơ với mọi tin có chung từ, giữ top-K bằng min-heap
+        List<Match> score(Vec profile) {
+            Map<Integer, Float> acc = new HashMap<>();
+            for (int i = 0; i < profile.terms().length; i++) {
+                Map<Integer, Float> postings = jobPostings.get(profile.terms()[i]);
+                if (postings == null) continue;
+                float pw = profile.weights()[i];
+                postings.forEach((tinId, jw) -> acc.merge(tinId, pw * jw, Float::sum));
+            }
+            PriorityQueue<Match> heap = new PriorityQueue<>(Comparator.comparingDouble(Match::score));
+            acc.forEach((tinId, s) -> {
+                if (heap.size() < topK) {
+                    heap.add(new Match(tinId, s));
+                } else if (s > heap.peek().score()) {
+                    heap.poll();
+                    heap.add(new Match(tinId, s));
+                }
+            });
+            List<Match> top = new ArrayList<>(heap);
+            top.sort(Comparator.comparingDouble(Match::score).reversed());
+            return top;
+        }
+
+        void addJobVector(int tinId, JobDoc job) {
+            jobs.put(tinId, job);
+            Vec vec = job.vec();
+            for (int i = 0; i < vec.terms().length; i++) {
+                jobPostings.computeIfAbsent(vec.terms()[i], k -> new HashMap<>()).put(tinId, vec.weights()[i]);
+            }
+        }
+
+        void addProfile(int ungVienId, int userId, Vec vec, List<Match> top) {
+            profileUsers.put(ungVienId, userId);
+            profiles.put(userId, vec);
+            for (int i = 0; i < vec.terms().length; i++) {
+                profilePostings.computeIfAbsent(vec.terms()[i], k -> new HashMap<>()).put(userId, vec.weights()[i]);
+            }
+            setRecommendations(userId, top);
+        }
+
+        void putJob(int tinId, Map<String, Object> row) {
+            Map<String, Integer> tf = jobTerms(row);
+            tf.keySet().forEach(term -> df.merge(term, 1, Integer::sum));
+            jobCount++;
+            JobDoc job = new JobDoc(weigh(tf), summary(row));
+            addJobVector(tinId, job);
+
+            // Chấm tin mới với các hồ sơ có chung từ, chen vào top-K nếu đủ điểm
+            Map<Integer, Float> acc = new HashMap<>();
+            Vec vec = job.vec();
+            for (int i = 0; i < vec.terms().length; i++) {
+                Map<Integer, Float> postings = profilePostings.get(vec.terms()[i]);
+                if (postings == null) continue;
+                float jw = vec.weights()[i];
+                postings.forEach((userId, pw) -> acc.merge(userId, pw * jw, Float::sum));
+            }
+            acc.forEach((userId, s) -> offer(userId, new Match(tinId, s)));
+        }
+
+        void removeJob(int tinId) {
+            JobDoc job = jobs.remove(tinId);
+            if (job == null) return;
+            jobCount--;
+            for (String term : job.vec().terms()) {
+                Map<Integer, Float> postings = jobPostings.get(term);
+                if (postings != null) {
+                    postings.remove(tinId);
+                    if (postings.isEmpty()) jobPostings.remove(term);
+                }
+                df.computeIfPresent(term, (k, v) -> v > 1 ? v - 1 : null);
+            }
+            // Ứng viên đang có tin này trong top-K: chấm lại để bù chỗ trống
+            Set<Integer> users = holders.remove(tinId);
+            if (users == null) return;
+            for (Integer userId : users) {
+                Vec profile = profiles.get(userId);
+                setRecommendations(userId, profile == null ? List.of() : score(profile));
+            }
+        }
+
+        void putProfile(int ungVienId, Map<String, Object> row) {
+            Integer oldUser = profileUsers.remove(ungVienId);
+            if (oldUser != null) {
+                Vec old = profiles.remove(oldUser);
+                if (old != null) {
+                    for (String term : old.terms()) {
+                        Map<Integer, Float> postings = profilePostings.get(term);
+                        if (postings != null) {
+                            postings.remove(oldUser);
+                            if (postings.isEmpty()) profilePostings.remove(term);
+                        }
+                    }
+                }
+                setRecommendations(oldUser, List.of());
+            }
+            if (row == null) return;
+
+            Vec vec = weigh(profileTerms(row));
+            addProfile(ungVienId, ((Number) row.get("UserID")).intValue(), vec, score(vec));
+        }
+
+        private void offer(int userId, Match match) {
+            List<Match> current = recommendations.getOrDefault(userId, List.of());
+            if (current.size() >= topK && match.score() <= current.get(current.size() - 1).score()) return;
+
+            List<Match> next = new ArrayList<>(current.size() + 1);
+            next.addAll(current);
+            next.removeIf(m -> m.tinId() == match.tinId());
+            next.add(match);
+            next.sort(Comparator.comparingDouble(Match::score).reversed());
+            if (next.size() > topK) next = next.subList(0, topK);
+            setRecommendations(userId, next);
+        }
+
+        private void setRecommendations(int userId, List<Match> top) {
+            List<Match> old = recommendations.remove(userId);
+            if (old != null) {
+                for (Match m : old) {
+                    Set<Integer> users = holders.get(m.tinId());
+                    if (users != null && users.remove(userId) && users.isEmpty()) holders.remove(m.tinId());
+                }
+            }
+            if (top.isEmpty()) return;
+            recommendations.put(userId, List.copyOf(top));
+            for (Match m : top) {
+                holders.computeIfAbsent(m.tinId(), k -> new HashSet<>()).add(userId);
+            }
+        }
+    }
+
+    private static Map<String, Integer> jobTerms(Map<String, Object> row) {
+        Map<String, Integer> tf = new HashMap<>();
+        addTerms(tf, row.get("TieuDe"), 2);
+        addTerms(tf, row.get("YeuCau"), 2);
+        addTerms(tf, row.get("MoTa"), 1);
+        return tf;
+    }
+
+    private static Map<String, Integer> profileTerms(Map<String, Object> row) {
+        Map<String, Integer> tf = new HashMap<>();
+        addTerms(tf, row.get("KyNang"), 2);
+        addTerms(tf, row.get("KinhNghiem"), 1);
+        addTerms(tf, row.get("HocVan"), 1);
+        return tf;
+    }
+
+    // Từ đơn + cặp từ liền nhau ("lap trinh" -> lap, trinh, lap_trinh): tiếng Việt ghép nhiều âm tiết thành 1 từ
+    private static void addTerms(Map<String, Integer> tf, Object text, int weight) {
+        if (text == null) return;
+        List<String> tokens = TextNormalizer.tokenize(text.toString());
+        for (int i = 0; i < tokens.size(); i++) {
+            tf.merge(tokens.get(i), weight, Integer::sum);
+            if (i > 0) tf.merge(tokens.get(i - 1) + "_" + tokens.get(i), weight, Integer::sum);
+        }
+    }
+
+    private static Map<String, Object> summary(Map<String, Object> row) {
+        Map<String, Object> s = new LinkedHashMap<>();
+        for (String col : new String[]{"TinID", "TieuDe", "TenCongTy", "MucLuong", "DiaDiemLamViec", "HanNop"}) {
+            s.put(col, row.get(col));
+        }
+        return Collections.unmodifiableMap(s);
+    }
+
+    /**
+     * Chạy body(i) cho i trong [from, to), chia đôi tới khi đủ nhỏ.
+     */
+    private static final class ParallelRange extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer body;
+
+        ParallelRange(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) body.accept(i);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParallelRange(from, mid, body), new ParallelRange(mid, to, body));
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "recommendations";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        lock.readLock().lock();
+        try {
+            Model m = model;
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("ready", isReady());
+            metrics.put("jobs", m.jobs.size());
+            metrics.put("profiles", m.profiles.size());
+            metrics.put("terms", m.df.size());
+            metrics.put("topK", topK);
+            metrics.put("lastBuildMillis", lastBuildMillis);
+            return metrics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.job.backend.service;
+
+import com.job.backend.event.JobChangedEvent;
+import com.job.backend.repository.StatisticsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cập nhật dần bảng tổng hợp ThongKeTuyenDung (NTDID x tháng) để dashboard thống kê chỉ đọc dòng có sẵn.
+ * - Hồ sơ ứng tuyển: đọc tiếp NhatKyTrangThai (mọi nơi tạo hồ sơ / đổi trạng thái đều ghi nhật ký trong
+ *   cùng giao dịch) từ vị trí đã lưu trong ThongKeTienDo; hồ sơ mới +1 SoUngVienUngTuyen, vào/ra nhóm
+ *   trúng tuyển ±1 SoHoSoTrungTuyen, tính theo tháng nộp hồ sơ.
+ * - Tin tuyển dụng: JobChangedEvent CREATED/DELETED ±1 SoTinDang theo tháng đăng, gom trong bộ nhớ.
+ * - Mỗi app.stats.flush-ms ghi các thay đổi đã gom bằng MERGE, cùng giao dịch với vị trí nhật ký mới.
+ * - Đối soát theo app.stats.reconcile-cron: tính lại toàn bộ từ bảng gốc, sửa các lệch (hồ sơ bị xóa
+ *   theo tin, thay đổi tin chưa kịp ghi khi tắt ứng dụng...). Lần chạy đầu (chưa có vị trí) cũng đối soát.
+ */
+@Service
+public class StatisticsAggregator implements MetricsSource {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final StatisticsRepository repository;
+    private final int batchSize;
+    private final int lagSeconds;
+
+    // "NTDID|yyyy-MM" -> {SoTinDang} thay đổi chưa ghi
+    private final Map<String, long[]> jobDeltas = new HashMap<>();
+    // flush và đối soát không chạy chồng nhau
+    private final Object runLock = new Object();
+    private volatile Long cursor;
+
+    private final LongAdder logRowsApplied = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private volatile long lastFlushMillis;
+    private volatile LocalDateTime lastReconcileAt;
+    private volatile int lastReconcileChanged;
+    private volatile long lastReconcileMillis;
+    private volatile String lastError;
+
+    public StatisticsAggregator(StatisticsRepository repository,
+                                @Value("${app.stats.batch-size:5000}") int batchSize,
+                                @Value("${app.stats.lag-seconds:5}") int lagSeconds) {
+        this.repository = repository;
+        this.batchSize = Math.max(batchSize, 1);
+        this.lagSeconds = Math.max(lagSeconds, 0);
+    }
+
+    @EventListener
+    public void onJobChanged(JobChangedEvent event) {
+        int delta = switch (event.kind()) {
+            case CREATED -> 1;
+            case DELETED -> -1;
+            default -> 0;
+        };
+        if (delta == 0 || event.row() == null || !(event.row().get("CreatedAt") instanceof Timestamp createdAt)) return;
+        String key = event.row().get("NTDID") + "|" + createdAt.toLocalDateTime().format(MONTH);
+        synchronized (jobDeltas) {
+            jobDeltas.computeIfAbsent(key, k -> new long[1])[0] += delta;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.stats.initial-delay-ms:30000}",
+            fixedDelayString = "${app.stats.flush-ms:10000}")
+    public void flush() {
+        synchronized (runLock) {
+            long start = System.currentTimeMillis();
+            try {
+                if (cursor == null) cursor = repository.findCursor();
+                if (cursor == null) {
+                    reconcileLocked();
+                    return;
+                }
+                boolean first = true;
+                while (true) {
+                    List<Map<String, Object>> rows = repository.readChangeLog(cursor, lagSeconds, batchSize);
+                    Map<String, long[]> deltas = first ? drainJobDeltas() : new HashMap<>();
+                    if (rows.isEmpty() && deltas.isEmpty()) break;
+
+                    long next = cursor;
+                    for (Map<String, Object> row : rows) {
+                        next = Math.max(next, ((Number) row.get("SoThuTu")).longValue());
+                        addApplicationDelta(deltas, row);
+                    }
+                    try {
+                        repository.applyDeltas(toRows(deltas), cursor, rows.isEmpty() ? null : next);
+                    } catch (RuntimeException e) {
+                        if (first) restoreJobDeltas(deltas);
+                        throw e;
+                    }
+                    cursor = next;
+                    logRowsApplied.add(rows.size());
+                    first = false;
+                    if (rows.size() < batchSize) break;
+                }
+                flushes.increment();
+                lastFlushMillis = System.currentTimeMillis() - start;
+            } catch (Exception e) {
+                // Vị trí trong bộ nhớ có thể đã cũ (tiến trình khác vừa ghi): đọc lại ở lượt sau
+                cursor = null;
+                lastError = e.getMessage();
+                System.err.println("❌ Cập nhật ThongKeTuyenDung thất bại: " + e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.stats.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        synchronized (runLock) {
+            try {
+                reconcileLocked();
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                System.err.println("❌ Đối soát ThongKeTuyenDung thất bại: " + e.getMessage());
+            }
+        }
+    }
+
+    // Thay đổi tin gom đến lúc tính lại xong đã nằm trong kết quả đối soát nên bỏ đi sau khi tính lại
+    // (bỏ trước thì thay đổi đến giữa chừng bị cộng 2 lần; sót thay đổi nào thì lần đối soát sau sửa)
+    private void reconcileLocked() {
+        long start = System.currentTimeMillis();
+        lastReconcileChanged = repository.reconcile();
+        drainJobDeltas();
+        cursor = repository.findCursor();
+        lastReconcileAt = LocalDateTime.now();
+        lastReconcileMillis = System.currentTimeMillis() - start;
+        System.out.println("✅ Đối soát ThongKeTuyenDung: sửa " + lastReconcileChanged + " dòng ("
+                + lastReconcileMillis + " ms)");
+    }
+
+    // Dòng nhật ký -> thay đổi {SoTinDang, SoUngVien, SoTrungTuyen} của (NTDID, tháng nộp hồ sơ)
+    private static void addApplicationDelta(Map<String, long[]> deltas, Map<String, Object> row) {
+        Object thangNam = row.get("ThangNam");
+        if (!"UngTuyen".equals(row.get("LoaiDoiTuong")) || thangNam == null) return;
+        Object cu = row.get("TrangThaiCu");
+        boolean wasAccepted = cu != null && StatisticsRepository.ACCEPTED_STATUSES.contains(cu.toString());
+        boolean isAccepted = StatisticsRepository.ACCEPTED_STATUSES.contains(String.valueOf(row.get("TrangThaiMoi")));
+        long ungVien = cu == null ? 1 : 0;
+        long trungTuyen = (isAccepted ? 1 : 0) - (wasAccepted ? 1 : 0);
+        if (ungVien == 0 && trungTuyen == 0) return;
+
+        long[] d = deltas.computeIfAbsent(row.get("NTDID") + "|" + thangNam, k -> new long[3]);
+        d[1] += ungVien;
+        d[2] += trungTuyen;
+    }
+
+    private Map<String, long[]> drainJobDeltas() {
+        Map<String, long[]> drained = new HashMap<>();
+        synchronized (jobDeltas) {
+            jobDeltas.forEach((key, d) -> {
+                if (d[0] != 0) drained.put(key, new long[]{d[0], 0, 0});
+            });
+            jobDeltas.clear();
+        }
+        return drained;
+    }
+
+    private void restoreJobDeltas(Map<String, long[]> deltas) {
+        synchronized (jobDeltas) {
+            deltas.forEach((key, d) -> {
+                if (d[0] != 0) jobDeltas.computeIfAbsent(key, k -> new long[1])[0] += d[0];
+            });
+        }
+    }
+
+    private static List<Object[]> toRows(Map<String, long[]> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, d) -> {
+            int sep = key.indexOf('|');
+            rows.add(new Object[]{Integer.valueOf(key.substring(0, sep)), key.substring(sep + 1), d[0], d[1], d[2]});
+        });
+        return rows;
+    }
+
+    @Override
+    public String metricsName() {
+        return "statistics-rollup";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        synchronized (jobDeltas) {
+            m.put("pendingJobDeltas", jobDeltas.size());
+        }
+        m.put("cursor", cursor);
+        m.put("flushes", flushes.sum());
+        m.put("logRowsApplied", logRowsApplied.sum());
+        m.put("lastFlushMillis", lastFlushMillis);
+        m.put("lastReconcileAt", lastReconcileAt);
+        m.put("lastReconcileChanged", lastReconcileChanged);
+        m.put("lastReconcileMillis", lastReconcileMillis);
+        m.put("lastError", lastError);
+        return m;
+    }
+}
@@ -0,0 +1,123 @@
+package com.job.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.job.backend.event.NotificationCreatedEvent;
+import com.job.backend.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đếm thông báo chưa đọc của từng user, cho badge trên header.
+ * - Lần đầu hỏi tới 1 user: 1 câu COUNT trên IX_Notification_UserID_NotiID, ghi nhớ kèm NotiID lớn nhất lúc đếm;
+ *   sau đó chỉ đọc bộ nhớ.
+ * - NotificationCreatedEvent có NotiID lớn hơn NotiID lớn nhất lúc đếm thì cộng 1 (chắc chắn chưa được đếm).
+ *   NotiID nhỏ hơn thì không biết đã nằm trong lần đếm chưa (IDENTITY cấp số lúc ghi, giao dịch số nhỏ
+ *   có thể commit sau câu COUNT): bỏ bộ đếm để lần hỏi sau đếm lại, thông báo đã commit nên chắc chắn được tính.
+ * - Sự kiện đến lúc đang đếm lần đầu chờ lần đếm xong rồi mới áp dụng (không bị mất).
+ * - Đánh dấu đã đọc trừ 1 khi thông báo thực sự chuyển từ chưa đọc sang đã đọc.
+ * - Giữ tối đa app.notify.unread-cache-size user; mỗi bộ đếm sống app.notify.unread-ttl-minutes kể từ lần
+ *   đếm rồi đếm lại, dù user vẫn hỏi liên tục (giới hạn sai lệch nếu có nơi ghi Notification không phát sự kiện).
+ */
+@Component
+public class UnreadCounter implements MetricsSource {
+
+    /**
+     * Số chưa đọc của 1 user; seededUpTo = NotiID lớn nhất đã tính trong lần COUNT.
+     */
+    private static final class Counter {
+        final int seededUpTo;
+        int unread;
+
+        Counter(int unread, int seededUpTo) {
+            this.unread = unread;
+            this.seededUpTo = seededUpTo;
+        }
+    }
+
+    private final NotificationRepository repository;
+    private final Cache<Integer, Counter> counters;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder seeds = new LongAdder();
+    private final LongAdder ambiguous = new LongAdder();
+
+    public UnreadCounter(NotificationRepository repository,
+                         @Value("${app.notify.unread-cache-size:500000}") long maxUsers,
+                         @Value("${app.notify.unread-ttl-minutes:60}") long ttlMinutes) {
+        this.repository = repository;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                // Tính từ lúc đếm: đọc và cộng/trừ không kéo dài thời gian sống
+                .expireAfter(Expiry.creating((Integer id, Counter c) -> Duration.ofMinutes(ttlMinutes)))
+                .build();
+    }
+
+    /**
+     * Số thông báo chưa đọc của user.
+     */
+    public int get(int userId) {
+        reads.increment();
+        Counter counter = counters.get(userId, this::seed);
+        synchronized (counter) {
+            return counter.unread;
+        }
+    }
+
+    @EventListener
+    public void onCreated(NotificationCreatedEvent event) {
+        // compute (khác getIfPresent) chờ lần đếm đang chạy của user xong rồi mới áp dụng
+        counters.asMap().compute(event.userId(), (id, counter) -> {
+            if (counter == null) return null;
+            if (event.notiId() <= counter.seededUpTo) {
+                ambiguous.increment();
+                return null;
+            }
+            synchronized (counter) {
+                counter.unread++;
+            }
+            return counter;
+        });
+    }
+
+    /**
+     * Gọi sau khi {@code count} thông báo chưa đọc của user vừa được đánh dấu đã đọc (hoặc đem đi lưu trữ).
+     */
+    public void onRead(int userId, int count) {
+        Counter counter = counters.getIfPresent(userId);
+        if (counter == null) return;
+        synchronized (counter) {
+            counter.unread = Math.max(counter.unread - count, 0);
+        }
+    }
+
+    private Counter seed(int userId) {
+        seeds.increment();
+        Map<String, Object> row = repository.countUnread(userId);
+        return new Counter(((Number) row.get("ChuaDoc")).intValue(), ((Number) row.get("NotiIDMax")).intValue());
+    }
+
+    @Override
+    public String metricsName() {
+        return "unread-counter";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long count = reads.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("users", counters.estimatedSize());
+        m.put("reads", count);
+        m.put("seeds", seeds.sum());
+        m.put("reseedsOutOfOrder", ambiguous.sum());
+        m.put("hitRate", count == 0 ? 0 : 1 - (double) seeds.sum() / count);
+        return m;
+    }
+}
@@ -0,0 +1,66 @@
+package com.job.backend.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV UTF-8 (có BOM để Excel hiển thị đúng tiếng Việt), theo RFC 4180.
+ * Ô chữ bắt đầu bằng = + - @ (hoặc tab, CR) được thêm dấu ' phía trước để Excel/Sheets không chạy như
+ * công thức (CSV injection); ô số giữ nguyên.
+ */
+public class CsvTableWriter implements TableWriter {
+
+    private final Writer out;
+
+    public CsvTableWriter(OutputStream stream) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 16 * 1024);
+        out.write('\uFEFF');
+    }
+
+    @Override
+    public void writeRow(Object... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) out.write(',');
+            if (cells[i] instanceof Number) {
+                out.write(cells[i].toString());
+            } else if (cells[i] != null) {
+                writeCell(escapeFormula(cells[i].toString()));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private static String escapeFormula(String value) {
+        if (value.isEmpty()) return value;
+        return switch (value.charAt(0)) {
+            case '=', '+', '-', '@', '\t', '\r' -> "'" + value;
+            default -> value;
+        };
+    }
+
+    private void writeCell(String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,148 @@
+package com.job.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cây khoảng (interval tree) trên treap: các khoảng nửa mở [start, end) sắp theo (start, id),
+ * mỗi nút giữ end lớn nhất trong cây con để bỏ qua nhánh không thể giao.
+ * Thêm/xóa O(log n) kỳ vọng; tìm các khoảng giao với [from, to) O(log n + k).
+ * Không đồng bộ, nơi dùng tự khóa.
+ *
+ * @param <V> dữ liệu gắn với mỗi khoảng
+ */
+public class IntervalTree<V> {
+
+    /**
+     * Một khoảng đã lưu: id phân biệt các khoảng cùng start.
+     */
+    public record Interval<V>(long start, long end, long id, V value) {
+    }
+
+    private static final class Node<V> {
+        final Interval<V> interval;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node<V> left;
+        Node<V> right;
+        long maxEnd;
+
+        Node(Interval<V> interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private Node<V> root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(long start, long end, long id, V value) {
+        Node<V>[] parts = split(root, start, id);
+        root = merge(merge(parts[0], new Node<>(new Interval<>(start, end, id, value))), parts[1]);
+        size++;
+    }
+
+    /**
+     * Gỡ khoảng có đúng (start, id); trả về false nếu không có.
+     */
+    public boolean remove(long start, long id) {
+        Node<V>[] lower = split(root, start, id);
+        Node<V>[] upper = split(lower[1], start, id + 1);
+        boolean found = upper[0] != null;
+        if (found) size--;
+        root = merge(lower[0], upper[1]);
+        return found;
+    }
+
+    /**
+     * Khoảng đầu tiên (theo start) giao với [from, to), null nếu không có.
+     */
+    public Interval<V> firstOverlap(long from, long to) {
+        return firstOverlap(root, from, to);
+    }
+
+    /**
+     * Mọi khoảng giao với [from, to), theo thứ tự start tăng dần.
+     */
+    public List<Interval<V>> overlapping(long from, long to) {
+        List<Interval<V>> out = new ArrayList<>();
+        collect(root, from, to, out);
+        return out;
+    }
+
+    /**
+     * Các khoảng trống dài ít nhất {@code minLength} trong [from, to), mỗi phần tử là {start, end}.
+     */
+    public List<long[]> gaps(long from, long to, long minLength) {
+        List<long[]> out = new ArrayList<>();
+        long cursor = from;
+        for (Interval<V> busy : overlapping(from, to)) {
+            if (busy.start() - cursor >= minLength) out.add(new long[]{cursor, busy.start()});
+            cursor = Math.max(cursor, busy.end());
+        }
+        if (to - cursor >= minLength) out.add(new long[]{cursor, to});
+        return out;
+    }
+
+    private static <V> Interval<V> firstOverlap(Node<V> node, long from, long to) {
+        while (node != null && node.maxEnd > from) {
+            if (node.left != null && node.left.maxEnd > from) {
+                Interval<V> found = firstOverlap(node.left, from, to);
+                if (found != null) return found;
+            }
+            if (node.interval.start() >= to) return null;
+            if (node.interval.end() > from) return node.interval;
+            node = node.right;
+        }
+        return null;
+    }
+
+    private static <V> void collect(Node<V> node, long from, long to, List<Interval<V>> out) {
+        if (node == null || node.maxEnd <= from) return;
+        collect(node.left, from, to, out);
+        if (node.interval.start() >= to) return;
+        if (node.interval.end() > from) out.add(node.interval);
+        collect(node.right, from, to, out);
+    }
+
+    // Tách thành (< (start, id)) và (>= (start, id))
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] split(Node<V> node, long start, long id) {
+        if (node == null) return new Node[]{null, null};
+        Interval<V> in = node.interval;
+        if (in.start() < start || (in.start() == start && in.id() < id)) {
+            Node<V>[] parts = split(node.right, start, id);
+            node.right = parts[0];
+            update(node);
+            return new Node[]{node, parts[1]};
+        }
+        Node<V>[] parts = split(node.left, start, id);
+        node.left = parts[1];
+        update(node);
+        return new Node[]{parts[0], node};
+    }
+
+    private static <V> Node<V> merge(Node<V> a, Node<V> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static <V> void update(Node<V> node) {
+        long max = node.interval.end();
+        if (node.left != null) max = Math.max(max, node.left.maxEnd);
+        if (node.right != null) max = Math.max(max, node.right.maxEnd);
+        node.maxEnd = max;
+    }
+}
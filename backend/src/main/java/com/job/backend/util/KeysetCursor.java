@@ -0,0 +1,34 @@
+package com.job.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Con trỏ phân trang kiểu keyset: (thời điểm, ID) của bản ghi cuối trang trước,
+ * mã hóa base64url để client chỉ việc gửi lại nguyên văn.
+ */
+public record KeysetCursor(Timestamp time, int id) {
+
+    public static String encode(Timestamp time, int id) {
+        String raw = time.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã con trỏ; chuỗi rỗng/null nghĩa là trang đầu (trả về null).
+     *
+     * @throws IllegalArgumentException nếu con trỏ không hợp lệ
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new KeysetCursor(new Timestamp(Long.parseLong(raw.substring(0, sep))),
+                    Integer.parseInt(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.job.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Cây tiền tố nén (radix trie) cho gợi ý (autocomplete): mỗi khóa gắn với 1 hoặc nhiều giá trị có trọng số.
+ * - Mỗi cạnh mang cả 1 đoạn chuỗi thay vì 1 ký tự: chuỗi đi thẳng không rẽ nhánh chỉ tốn 1 nút.
+ * - Con của 1 nút là mảng sắp theo ký tự đầu của nhãn, giá trị là 2 mảng song song (giá trị, trọng số);
+ *   không dùng HashMap và Character cho từng ký tự.
+ * - Mỗi nút nhớ trọng số lớn nhất trong cây con nên lấy top-K theo tiền tố là duyệt best-first,
+ *   chỉ đi vào các nhánh có thể còn lọt top-K thay vì quét cả cây con.
+ * Khóa phải được chuẩn hóa trước (vd TextNormalizer.normalize). Không thread-safe: nơi dùng tự khóa.
+ */
+public final class PrefixTrie<V> {
+
+    private static final Object[] NO_VALUES = new Object[0];
+    private static final long[] NO_WEIGHTS = new long[0];
+
+    private static final class Node {
+        // Nhãn cạnh từ nút cha (rỗng ở gốc)
+        String label;
+        Node[] children;
+        Object[] values = NO_VALUES;
+        long[] weights = NO_WEIGHTS;
+        long best = Long.MIN_VALUE;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            if (children == null) return -1;
+            int lo = 0, hi = children.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char m = children[mid].label.charAt(0);
+                if (m < c) lo = mid + 1;
+                else if (m > c) hi = mid - 1;
+                else return mid;
+            }
+            return -(lo + 1);
+        }
+
+        void addChild(Node child) {
+            int pos = -(childIndex(child.label.charAt(0)) + 1);
+            Node[] next = new Node[children == null ? 1 : children.length + 1];
+            if (children != null) {
+                System.arraycopy(children, 0, next, 0, pos);
+                System.arraycopy(children, pos, next, pos + 1, children.length - pos);
+            }
+            next[pos] = child;
+            children = next;
+        }
+
+        void removeChild(int index) {
+            if (children.length == 1) {
+                children = null;
+                return;
+            }
+            Node[] next = new Node[children.length - 1];
+            System.arraycopy(children, 0, next, 0, index);
+            System.arraycopy(children, index + 1, next, index, children.length - index - 1);
+            children = next;
+        }
+
+        int valueIndex(Object value) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i].equals(value)) return i;
+            }
+            return -1;
+        }
+
+        int childCount() {
+            return children == null ? 0 : children.length;
+        }
+
+        void refresh() {
+            long b = Long.MIN_VALUE;
+            for (long w : weights) b = Math.max(b, w);
+            if (children != null) {
+                for (Node child : children) b = Math.max(b, child.best);
+            }
+            best = b;
+        }
+    }
+
+    private record Candidate(long weight, Node node, Object value) {
+    }
+
+    private final Node root = new Node("");
+    private int size;
+
+    /** Số cặp (khóa, giá trị) đang lưu. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Thêm hoặc cập nhật trọng số của giá trị tại khóa.
+     */
+    public void put(String key, V value, long weight) {
+        if (key == null || key.isEmpty()) return;
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int idx = node.childIndex(key.charAt(i));
+            if (idx < 0) {
+                Node leaf = new Node(key.substring(i));
+                node.addChild(leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node child = node.children[idx];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Tách cạnh: nút giữa mang phần chung, nút cũ giữ phần còn lại
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.children = new Node[]{child};
+                mid.best = child.best;
+                node.children[idx] = mid;
+                child = mid;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+
+        int v = node.valueIndex(value);
+        if (v >= 0) {
+            node.weights[v] = weight;
+        } else {
+            node.values = Arrays.copyOf(node.values, node.values.length + 1);
+            node.weights = Arrays.copyOf(node.weights, node.weights.length + 1);
+            node.values[node.values.length - 1] = value;
+            node.weights[node.weights.length - 1] = weight;
+            size++;
+        }
+        refresh(path);
+    }
+
+    /**
+     * Gỡ giá trị khỏi khóa, dọn và gộp lại các nhánh thừa. Trả về false nếu không có.
+     */
+    public boolean remove(String key, V value) {
+        if (key == null || key.isEmpty()) return false;
+        List<Node> path = find(key);
+        if (path == null) return false;
+        Node leaf = path.get(path.size() - 1);
+        int v = leaf.valueIndex(value);
+        if (v < 0) return false;
+        leaf.values = without(leaf.values, v);
+        leaf.weights = without(leaf.weights, v);
+        size--;
+
+        // Nút không còn giá trị: bỏ nếu không có con, gộp với con nếu chỉ còn 1 con
+        Node parent = path.get(path.size() - 2);
+        if (leaf.values.length == 0 && leaf.childCount() <= 1) {
+            int idx = parent.childIndex(leaf.label.charAt(0));
+            if (leaf.childCount() == 0) {
+                parent.removeChild(idx);
+                path.remove(path.size() - 1);
+                // Nút cha (không phải gốc) giờ có thể chỉ còn 1 con và không có giá trị
+                if (parent != root && parent.values.length == 0 && parent.childCount() == 1) {
+                    Node grand = path.get(path.size() - 2);
+                    grand.children[grand.childIndex(parent.label.charAt(0))] = merge(parent);
+                    path.remove(path.size() - 1);
+                }
+            } else {
+                parent.children[idx] = merge(leaf);
+                path.remove(path.size() - 1);
+            }
+        }
+        refresh(path);
+        return true;
+    }
+
+    /**
+     * Tối đa {@code limit} giá trị (không trùng) có khóa bắt đầu bằng {@code prefix},
+     * trọng số giảm dần. Cùng một giá trị ở nhiều khóa chỉ lấy lần có trọng số cao nhất.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> topK(String prefix, int limit) {
+        if (limit <= 0) return List.of();
+        Node start = locate(prefix == null ? "" : prefix);
+        if (start == null || start.best == Long.MIN_VALUE) return List.of();
+
+        Set<V> result = new LinkedHashSet<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(
+                Comparator.comparingLong(Candidate::weight).reversed());
+        queue.add(new Candidate(start.best, start, null));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate c = queue.poll();
+            if (c.node() == null) {
+                result.add((V) c.value());
+                continue;
+            }
+            Node node = c.node();
+            for (int i = 0; i < node.values.length; i++) {
+                queue.add(new Candidate(node.weights[i], null, node.values[i]));
+            }
+            if (node.children != null) {
+                for (Node child : node.children) queue.add(new Candidate(child.best, child, null));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    // Nút đầu tiên mà mọi khóa trong cây con đều bắt đầu bằng prefix (prefix có thể dừng giữa 1 nhãn)
+    private Node locate(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int idx = node.childIndex(prefix.charAt(i));
+            if (idx < 0) return null;
+            Node child = node.children[idx];
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) return child;
+            if (common < child.label.length()) return null;
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    // Đường đi từ gốc tới nút có đúng khóa key, null nếu không có
+    private List<Node> find(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int idx = node.childIndex(key.charAt(i));
+            if (idx < 0) return null;
+            node = node.children[idx];
+            if (!key.startsWith(node.label, i)) return null;
+            path.add(node);
+            i += node.label.length();
+        }
+        return path;
+    }
+
+    // Nút không giá trị có đúng 1 con: thay bằng con đó với nhãn nối dài
+    private static Node merge(Node node) {
+        Node child = node.children[0];
+        child.label = node.label + child.label;
+        return child;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int n = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(from + i)) i++;
+        return i;
+    }
+
+    private static Object[] without(Object[] a, int index) {
+        if (a.length == 1) return NO_VALUES;
+        Object[] next = new Object[a.length - 1];
+        System.arraycopy(a, 0, next, 0, index);
+        System.arraycopy(a, index + 1, next, index, a.length - index - 1);
+        return next;
+    }
+
+    private static long[] without(long[] a, int index) {
+        if (a.length == 1) return NO_WEIGHTS;
+        long[] next = new long[a.length - 1];
+        System.arraycopy(a, 0, next, 0, index);
+        System.arraycopy(a, index + 1, next, index, a.length - index - 1);
+        return next;
+    }
+
+    // Tính lại trọng số lớn nhất của cây con từ lá ngược lên gốc
+    private static void refresh(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) path.get(i).refresh();
+    }
+}
@@ -0,0 +1,120 @@
+package com.job.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chuyển chuỗi MucLuong tự do thành khoảng lương (VND) để lọc/sắp xếp bằng index.
+ * Ví dụ: "10-15 triệu" -> [10.000.000, 15.000.000]; "$1000" -> quy đổi theo tỷ giá;
+ * "Thỏa thuận" -> negotiable. Khoảng mở được đóng lại để cột số luôn so sánh được:
+ * "Trên 20 triệu" -> [20tr, 20tr], "Dưới 10 triệu" -> [0, 10tr].
+ */
+public final class SalaryParser {
+
+    public record SalaryRange(Long min, Long max, boolean negotiable) {
+        public static final SalaryRange EMPTY = new SalaryRange(null, null, false);
+    }
+
+    // số (có thể có dấu phân cách . ,) + đơn vị tùy chọn + tiền tệ tùy chọn, trên chuỗi đã bỏ dấu.
+    // Số là nhóm nguyên khối (atomic): "1000usd" không được lùi thành "100" + "0" cho qua lookahead
+    private static final Pattern AMOUNT = Pattern.compile(
+            "((?>\\d+(?:[.,]\\d+)*))\\s*(ty|trieu|tr|m|k|nghin|ngan)?\\s*(?:usd|vnd|dong|d)?(?![a-z])");
+    private static final Pattern NEGOTIABLE =
+            Pattern.compile("thoa thuan|canh tranh|negotiable|competitive|\\bdeal\\b");
+    private static final Pattern LOWER_ONLY =
+            Pattern.compile("\\b(tren|tu|toi thieu|it nhat|tro len|from|over|min)\\b|>");
+    private static final Pattern UPPER_ONLY =
+            Pattern.compile("\\b(duoi|den|toi da|toi|len toi|khong qua|up to|upto|max)\\b|<");
+
+    private SalaryParser() {
+    }
+
+    /**
+     * @param usdToVnd tỷ giá quy đổi khi lương ghi bằng USD
+     */
+    public static SalaryRange parse(String text, long usdToVnd) {
+        String folded = TextNormalizer.fold(text).trim();
+        if (folded.isEmpty()) return SalaryRange.EMPTY;
+
+        boolean negotiable = NEGOTIABLE.matcher(folded).find();
+        boolean usd = folded.contains("$") || folded.contains("usd");
+
+        List<Double> values = new ArrayList<>(2);
+        List<String> units = new ArrayList<>(2);
+        Matcher m = AMOUNT.matcher(folded);
+        while (values.size() < 2 && m.find()) {
+            values.add(parseNumber(m.group(1)));
+            units.add(m.group(2));
+        }
+        if (values.isEmpty()) return new SalaryRange(null, null, negotiable);
+
+        // "10-15 triệu": đơn vị của số sau áp dụng cho số trước
+        String sharedUnit = units.get(units.size() - 1) != null ? units.get(units.size() - 1) : units.get(0);
+        long[] amounts = new long[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            String unit = units.get(i) != null ? units.get(i) : sharedUnit;
+            double amount = values.get(i) * multiplier(unit, values.get(i), usd);
+            if (usd) amount *= usdToVnd;
+            amounts[i] = Math.round(amount);
+        }
+
+        long min;
+        long max;
+        if (amounts.length == 2) {
+            min = Math.min(amounts[0], amounts[1]);
+            max = Math.max(amounts[0], amounts[1]);
+        } else if (LOWER_ONLY.matcher(folded).find()) {
+            min = amounts[0];
+            max = amounts[0];
+        } else if (UPPER_ONLY.matcher(folded).find()) {
+            min = 0;
+            max = amounts[0];
+        } else {
+            min = amounts[0];
+            max = amounts[0];
+        }
+        return new SalaryRange(min, max, negotiable);
+    }
+
+    private static double multiplier(String unit, double value, boolean usd) {
+        if (unit == null) {
+            // Không ghi đơn vị: với VND, số nhỏ hiểu là "triệu" ("8 - 12"), số lớn là VND
+            return usd || value >= 1000 ? 1 : 1_000_000;
+        }
+        return switch (unit) {
+            case "ty" -> 1_000_000_000;
+            case "trieu", "tr", "m" -> 1_000_000;
+            default -> 1_000; // k, nghin, ngan
+        };
+    }
+
+    /**
+     * "10.000.000" / "1,000" -> phân cách hàng nghìn; "1.5" / "1,5" -> số thập phân.
+     */
+    private static double parseNumber(String s) {
+        int dots = count(s, '.');
+        int commas = count(s, ',');
+        if (dots + commas == 0) return Double.parseDouble(s);
+
+        if (dots > 0 && commas > 0) {
+            char decimal = s.lastIndexOf('.') > s.lastIndexOf(',') ? '.' : ',';
+            char thousands = decimal == '.' ? ',' : '.';
+            return Double.parseDouble(s.replace(String.valueOf(thousands), "").replace(decimal, '.'));
+        }
+
+        char sep = dots > 0 ? '.' : ',';
+        String lastGroup = s.substring(s.lastIndexOf(sep) + 1);
+        if (dots + commas > 1 || lastGroup.length() == 3) {
+            return Double.parseDouble(s.replace(String.valueOf(sep), ""));
+        }
+        return Double.parseDouble(s.replace(sep, '.'));
+    }
+
+    private static int count(String s, char c) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) == c) n++;
+        return n;
+    }
+}
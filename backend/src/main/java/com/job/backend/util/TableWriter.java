@@ -0,0 +1,18 @@
+package com.job.backend.util;
+
+import java.io.IOException;
+
+/**
+ * Ghi bảng dữ liệu từng dòng một ra luồng (CSV/XLSX) mà không giữ các dòng đã ghi trong bộ nhớ.
+ */
+public interface TableWriter extends AutoCloseable {
+
+    void writeRow(Object... cells) throws IOException;
+
+    /** Đẩy phần đã ghi xuống client (không đóng luồng). */
+    void flush() throws IOException;
+
+    /** Ghi phần kết thúc file và đóng writer (không đóng luồng gốc). */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,49 @@
+package com.job.backend.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa văn bản tiếng Việt cho tìm kiếm: bỏ dấu, chữ thường, tách từ.
+ * "Lập trình viên Đà Nẵng" -> [lap, trinh, vien, da, nang]
+ */
+public final class TextNormalizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Bỏ dấu + chữ thường, giữ nguyên khoảng trắng/ký tự phân cách.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) return "";
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Tách văn bản thành các từ đã bỏ dấu (giữ thứ tự, có thể trùng).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) return tokens;
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Bỏ dấu rồi gom các từ lại bằng một dấu cách ("TP. Hồ  Chí Minh" -> "tp ho chi minh").
+     */
+    public static String normalize(String text) {
+        return String.join(" ", tokenize(text));
+    }
+}
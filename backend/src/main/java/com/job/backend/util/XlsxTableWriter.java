@@ -0,0 +1,116 @@
+package com.job.backend.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Ghi file XLSX tối giản (1 sheet, chuỗi inline) theo kiểu streaming:
+ * các phần cố định ghi trước, sheet1.xml ghi dần từng dòng vào ZIP nên bộ nhớ
+ * không phụ thuộc số dòng (khác với dựng workbook trong RAM rồi mới ghi).
+ */
+public class XlsxTableWriter implements TableWriter {
+
+    // Giới hạn độ dài nội dung 1 ô của Excel
+    private static final int MAX_CELL_CHARS = 32_767;
+
+    private final ZipOutputStream zip;
+    private final Writer sheet;
+    private int rowNumber;
+
+    public XlsxTableWriter(OutputStream stream, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(stream, StandardCharsets.UTF_8);
+
+        putEntry("[Content_Types].xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">
+                <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>
+                <Default Extension="xml" ContentType="application/xml"/>
+                <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>
+                <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>
+                </Types>""");
+        putEntry("_rels/.rels", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>
+                </Relationships>""");
+        putEntry("xl/workbook.xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">
+                <sheets><sheet name="%s" sheetId="1" r:id="rId1"/></sheets>
+                </workbook>""".formatted(escape(sheetName)));
+        putEntry("xl/_rels/workbook.xml.rels", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>
+                </Relationships>""");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        this.sheet = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        sheet.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    }
+
+    @Override
+    public void writeRow(Object... cells) throws IOException {
+        rowNumber++;
+        sheet.write("<row r=\"" + rowNumber + "\">");
+        for (Object cell : cells) {
+            if (cell == null) {
+                sheet.write("<c/>");
+            } else if (cell instanceof Number n) {
+                sheet.write("<c><v>" + n + "</v></c>");
+            } else {
+                String text = cell.toString();
+                if (text.length() > MAX_CELL_CHARS) text = text.substring(0, MAX_CELL_CHARS);
+                sheet.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                sheet.write(escape(text));
+                sheet.write("</t></is></c>");
+            }
+        }
+        sheet.write("</row>");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        sheet.flush();
+        zip.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sheet.write("</sheetData></worksheet>");
+        sheet.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void putEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    // Escape XML + bỏ ký tự điều khiển không hợp lệ trong XML 1.0
+    private static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.job.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chữ ký MinHash của DuplicateJobDetector: ổn định, bỏ dấu, tỉ lệ trùng xấp xỉ độ giống Jaccard.
+ */
+class DuplicateJobDetectorTest {
+
+    private static final String MO_TA = "Phát triển và bảo trì hệ thống backend bằng Java Spring Boot, "
+            + "thiết kế API REST, tối ưu truy vấn SQL Server, viết kiểm thử tự động và phối hợp với nhóm "
+            + "frontend để triển khai tính năng mới cho nền tảng tuyển dụng trực tuyến";
+
+    @Test
+    void sameContentSameSignature() {
+        int[] a = DuplicateJobDetector.signature(job("Lập trình viên Java", MO_TA, "2 năm kinh nghiệm"));
+        int[] b = DuplicateJobDetector.signature(job("LẬP TRÌNH VIÊN JAVA", MO_TA.replace("Phát", "phat"),
+                "2 năm  kinh nghiệm"));
+
+        assertNotNull(a);
+        assertArrayEquals(a, b);
+        assertEquals(1.0, DuplicateJobDetector.similarity(a, b));
+    }
+
+    @Test
+    void nearDuplicateScoresHigh() {
+        int[] original = DuplicateJobDetector.signature(job("Lập trình viên Java", MO_TA, "2 năm kinh nghiệm"));
+        int[] edited = DuplicateJobDetector.signature(job("Lập trình viên Java", MO_TA + " tại Hà Nội",
+                "2 năm kinh nghiệm"));
+        int[] other = DuplicateJobDetector.signature(job("Nhân viên kế toán",
+                "Lập báo cáo tài chính, kê khai thuế hàng tháng, đối chiếu công nợ với khách hàng và nhà cung cấp",
+                "Tốt nghiệp chuyên ngành kế toán"));
+
+        assertTrue(DuplicateJobDetector.similarity(original, edited) >= 0.7);
+        assertTrue(DuplicateJobDetector.similarity(original, other) <= 0.1);
+    }
+
+    @Test
+    void estimatesJaccard() {
+        // 2 văn bản dùng chung 60 trong 100 từ đầu: Jaccard của tập shingle 3 từ = 58 / 138
+        List<String> shared = words("chung", 60);
+        String a = String.join(" ", concat(shared, words("rieng a", 40)));
+        String b = String.join(" ", concat(shared, words("rieng b", 40)));
+        double jaccard = 58.0 / (98 + 98 - 58);
+
+        double estimate = DuplicateJobDetector.similarity(
+                DuplicateJobDetector.signature(job(null, a, null)),
+                DuplicateJobDetector.signature(job(null, b, null)));
+        assertEquals(jaccard, estimate, 0.2);
+    }
+
+    @Test
+    void emptyJobHasNoSignature() {
+        assertNull(DuplicateJobDetector.signature(job(null, "  ", null)));
+        // ít hơn 3 từ vẫn có chữ ký (1 shingle ngắn)
+        assertNotNull(DuplicateJobDetector.signature(job("Kế toán", null, null)));
+    }
+
+    private static Map<String, Object> job(String tieuDe, String moTa, String yeuCau) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("TieuDe", tieuDe);
+        row.put("MoTa", moTa);
+        row.put("YeuCau", yeuCau);
+        return row;
+    }
+
+    private static List<String> words(String prefix, int count) {
+        List<String> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) out.add(prefix.replace(' ', 'x') + i);
+        return out;
+    }
+
+    private static List<String> concat(List<String> a, List<String> b) {
+        List<String> out = new ArrayList<>(a);
+        out.addAll(b);
+        return out;
+    }
+}
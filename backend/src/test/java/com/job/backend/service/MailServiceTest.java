@@ -0,0 +1,186 @@
+package com.job.backend.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MailService với SMTP giả lập (GreenMail): gửi được, thử lại có giãn cách, thư chết.
+ */
+class MailServiceTest {
+
+    private MailService mailService;
+    private GreenMail greenMail;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (mailService != null) mailService.shutdown();
+        if (greenMail != null) greenMail.stop();
+    }
+
+    @Test
+    void deliversQueuedMailOverOneConnection() throws Exception {
+        int port = freePort();
+        greenMail = startGreenMail(port);
+        mailService = newMailService(port, 5, 100);
+
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(mailService.sendMail("ungvien" + i + "@example.com", "Thư mời phỏng vấn " + i, "<p>Xin chào</p>"));
+        }
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 3));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertTrue(received[0].getSubject().startsWith("Thư mời phỏng vấn"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> metric("sent") == 3);
+        assertEquals(1, metric("connectionsOpened"));
+        assertEquals(0, metric("queueDepth"));
+    }
+
+    @Test
+    void retriesWithBackoffUntilServerIsUp() throws Exception {
+        int port = freePort();
+        mailService = newMailService(port, 5, 300);
+
+        assertTrue(mailService.sendMail("ungvien@example.com", "Kết quả", "<p>Chúc mừng</p>"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> metric("failedAttempts") >= 1);
+        greenMail = startGreenMail(port);
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 1));
+        await().atMost(Duration.ofSeconds(5)).until(() -> metric("sent") == 1);
+        assertEquals(0, metric("deadLettered"));
+        assertEquals(0, metric("queueDepth"));
+    }
+
+    @Test
+    void deadLettersAfterMaxAttemptsWithGrowingDelay() {
+        int port = freePort();
+        mailService = newMailService(port, 3, 200);
+
+        long start = System.currentTimeMillis();
+        assertTrue(mailService.sendMail("ungvien@example.com", "Kết quả", "<p>Chúc mừng</p>"));
+        await().atMost(Duration.ofSeconds(10)).until(() -> deadLetters().size() == 1);
+
+        // 3 lần thử, giữa các lần chờ ít nhất 200ms rồi 400ms
+        assertTrue(System.currentTimeMillis() - start >= 600);
+        assertEquals(3, metric("failedAttempts"));
+        assertEquals(0, metric("permanentFailures"));
+        assertEquals(0, metric("queueDepth"));
+        assertEquals(1, metric("deadLettered"));
+        Map<?, ?> dead = (Map<?, ?>) deadLetters().get(0);
+        assertEquals("ungvien@example.com", dead.get("to"));
+        assertEquals(3, dead.get("attempts"));
+    }
+
+    @Test
+    void deadLettersPermanentFailureWithoutRetry() throws Exception {
+        try (RejectingSmtpServer server = new RejectingSmtpServer()) {
+            mailService = newMailService(server.port(), 5, 100);
+
+            assertTrue(mailService.sendMail("khong-ton-tai@example.com", "Kết quả", "<p>Chúc mừng</p>"));
+            await().atMost(Duration.ofSeconds(5)).until(() -> deadLetters().size() == 1);
+
+            assertEquals(1, metric("failedAttempts"));
+            assertEquals(1, metric("permanentFailures"));
+            assertEquals(0, metric("sent"));
+            assertEquals(1, metric("deadLettered"));
+            Map<?, ?> dead = (Map<?, ?>) deadLetters().get(0);
+            assertEquals(1, dead.get("attempts"));
+        }
+    }
+
+    private MailService newMailService(int port, int maxAttempts, long backoffMs) {
+        return new MailService("127.0.0.1", port, "", "", false, 1, 100, 20, maxAttempts, backoffMs, 500);
+    }
+
+    private long metric(String name) {
+        return ((Number) mailService.metrics().get(name)).longValue();
+    }
+
+    private List<?> deadLetters() {
+        return (List<?>) mailService.metrics().get("recentDeadLetters");
+    }
+
+    private static GreenMail startGreenMail(int port) {
+        GreenMail server = new GreenMail(new ServerSetup(port, "127.0.0.1", ServerSetup.PROTOCOL_SMTP));
+        server.start();
+        return server;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * SMTP tối giản từ chối mọi người nhận bằng 550 (GreenMail luôn nhận thư nên không giả được lỗi 5xx).
+     */
+    private static final class RejectingSmtpServer implements AutoCloseable {
+        private final ServerSocket socket = new ServerSocket(0);
+
+        RejectingSmtpServer() throws IOException {
+            Thread t = new Thread(this::serve, "rejecting-smtp");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        private void serve() {
+            while (!socket.isClosed()) {
+                try (Socket client = socket.accept();
+                     BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                     PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                    reply(out, "220 localhost ESMTP");
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                        switch (command) {
+                            case "EHLO", "HELO", "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+                            case "RCPT" -> reply(out, "550 5.1.1 User unknown");
+                            case "QUIT" -> {
+                                reply(out, "221 Bye");
+                                client.close();
+                            }
+                            default -> reply(out, "502 Command not implemented");
+                        }
+                    }
+                } catch (IOException e) {
+                    // socket đã đóng khi kết thúc test
+                }
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.job.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvTableWriterTest {
+
+    private static final String BOM = "\uFEFF";
+
+    @Test
+    void startsWithBom() throws IOException {
+        String csv = write(new Object[]{"Họ tên", "Email"});
+
+        assertTrue(csv.startsWith(BOM));
+        assertEquals("Họ tên,Email\r\n", csv.substring(1));
+    }
+
+    @Test
+    void formulaCellsArePrefixed() throws IOException {
+        assertEquals("'=1+1,'+84 912,'-2,'@SUM(A1)\r\n", body(new Object[]{"=1+1", "+84 912", "-2", "@SUM(A1)"}));
+        // tab/CR đầu ô: thêm ' rồi mới xét bao nháy (CR buộc phải bao)
+        assertEquals("'\tx,\"'\ry\"\r\n", body(new Object[]{"\tx", "\ry"}));
+        // ký tự đặc biệt ở giữa ô không phải công thức
+        assertEquals("a=b,1-2\r\n", body(new Object[]{"a=b", "1-2"}));
+    }
+
+    @Test
+    void numbersAreUnchanged() throws IOException {
+        assertEquals("-5,3.5,-0.25,12000000\r\n",
+                body(new Object[]{-5, 3.5, new BigDecimal("-0.25"), 12_000_000L}));
+    }
+
+    @Test
+    void specialCharactersAreQuoted() throws IOException {
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\",\"line\nbreak\",plain\r\n",
+                body(new Object[]{"a,b", "say \"hi\"", "line\nbreak", "plain"}));
+        assertEquals("\"'=HYPERLINK(\"\"x\"\")\"\r\n", body(new Object[]{"=HYPERLINK(\"x\")"}));
+    }
+
+    @Test
+    void nullAndEmptyCells() throws IOException {
+        assertEquals(",,x\r\n", body(new Object[]{null, "", "x"}));
+    }
+
+    private static String body(Object[]... rows) throws IOException {
+        return write(rows).substring(BOM.length());
+    }
+
+    private static String write(Object[]... rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CsvTableWriter writer = new CsvTableWriter(bytes)) {
+            for (Object[] row : rows) writer.writeRow(row);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
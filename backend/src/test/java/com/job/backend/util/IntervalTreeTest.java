@@ -0,0 +1,100 @@
+package com.job.backend.util;
+
+import com.job.backend.util.IntervalTree.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    @Test
+    void halfOpenOverlap() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(9, 10, 1, "a");
+        tree.insert(10, 11, 2, "b");
+        tree.insert(8, 12, 3, "c");
+
+        assertEquals(List.of("c", "a"), values(tree.overlapping(9, 10)));
+        assertEquals("c", tree.firstOverlap(10, 11).value());
+        assertNull(tree.firstOverlap(12, 13));
+        // [x, 9) chạm nhưng không giao [9, 10)
+        assertEquals(List.of("c"), values(tree.overlapping(7, 9)));
+    }
+
+    @Test
+    void removeNeedsStartAndId() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(100, 200, 1, "a");
+        tree.insert(100, 150, 2, "b");
+
+        assertFalse(tree.remove(100, 3));
+        assertFalse(tree.remove(101, 1));
+        assertTrue(tree.remove(100, 1));
+        assertEquals(1, tree.size());
+        assertEquals(List.of("b"), values(tree.overlapping(0, 1000)));
+        // maxEnd của gốc phải giảm theo: không còn khoảng nào kéo tới 200
+        assertNull(tree.firstOverlap(160, 300));
+    }
+
+    @Test
+    void gaps() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(10, 20, 1, "a");
+        tree.insert(15, 30, 2, "b");
+        tree.insert(45, 50, 3, "c");
+
+        List<long[]> gaps = tree.gaps(0, 60, 10);
+        assertEquals(3, gaps.size());
+        assertArrayEquals(new long[]{0, 10}, gaps.get(0));
+        assertArrayEquals(new long[]{30, 45}, gaps.get(1));
+        assertArrayEquals(new long[]{50, 60}, gaps.get(2));
+        assertEquals(1, tree.gaps(0, 60, 15).size());
+    }
+
+    @Test
+    void matchesBruteForceAcrossSplitsAndMerges() {
+        Random random = new Random(7);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        List<Interval<Long>> expected = new ArrayList<>();
+        long nextId = 0;
+
+        for (int step = 0; step < 20_000; step++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                Interval<Long> victim = expected.remove(random.nextInt(expected.size()));
+                assertTrue(tree.remove(victim.start(), victim.id()));
+            } else {
+                long start = random.nextInt(10_000);
+                // vài khoảng rất dài để maxEnd của cây con khác hẳn end của nút
+                long length = random.nextInt(20) == 0 ? random.nextInt(5_000) : 1 + random.nextInt(60);
+                long id = nextId++;
+                tree.insert(start, start + length, id, id);
+                expected.add(new Interval<>(start, start + length, id, id));
+            }
+
+            if (step % 20 == 0) {
+                long from = random.nextInt(10_000);
+                long to = from + 1 + random.nextInt(200);
+                List<Interval<Long>> want = expected.stream()
+                        .filter(in -> in.start() < to && in.end() > from)
+                        .sorted(Comparator.comparingLong(Interval<Long>::start).thenComparingLong(Interval::id))
+                        .toList();
+                assertEquals(want, tree.overlapping(from, to));
+                assertEquals(want.isEmpty() ? null : want.get(0), tree.firstOverlap(from, to));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+    }
+
+    private static <V> List<V> values(List<Interval<V>> intervals) {
+        return intervals.stream().map(Interval::value).toList();
+    }
+}
@@ -0,0 +1,43 @@
+package com.job.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTrip() {
+        Timestamp time = Timestamp.valueOf("2025-11-30 08:15:42.123");
+        String cursor = KeysetCursor.encode(time, 4711);
+
+        assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"));
+        assertEquals(new KeysetCursor(time, 4711), KeysetCursor.decode(cursor));
+    }
+
+    @Test
+    void blankMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode("  "));
+    }
+
+    @Test
+    void rejectsTamperedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("không-phải-base64!"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("1700000000000")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("abc:12")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("1700000000000:x")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
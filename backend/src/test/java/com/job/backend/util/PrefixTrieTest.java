@@ -0,0 +1,119 @@
+package com.job.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixTrieTest {
+
+    @Test
+    void topKByWeightWithinPrefix() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put("java developer", "java-dev", 50);
+        trie.put("java", "java", 80);
+        trie.put("javascript", "js", 90);
+        trie.put("kotlin", "kotlin", 100);
+
+        assertEquals(List.of("js", "java", "java-dev"), trie.topK("jav", 10));
+        assertEquals(List.of("js", "java"), trie.topK("java", 2));
+        // tiền tố dừng giữa nhãn của 1 cạnh nén
+        assertEquals(List.of("js"), trie.topK("javas", 10));
+        assertEquals(List.of("kotlin", "js"), trie.topK("", 2));
+        assertEquals(List.of(), trie.topK("python", 10));
+        assertEquals(List.of(), trie.topK("javascripts", 10));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    void updateAndDedupeValues() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        trie.put("ha noi", 1, 10);
+        trie.put("hai phong", 2, 20);
+        trie.put("ha long", 1, 30);
+        assertEquals(List.of(1, 2), trie.topK("ha", 10));
+
+        trie.put("hai phong", 2, 40);
+        assertEquals(List.of(2, 1), trie.topK("ha", 10));
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    void removeMergesBranches() {
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put("tester", "a", 1);
+        trie.put("test", "b", 2);
+        trie.put("team", "c", 3);
+
+        assertTrue(trie.remove("test", "b"));
+        assertFalse(trie.remove("test", "b"));
+        assertFalse(trie.remove("tes", "a"));
+        assertEquals(List.of("c", "a"), trie.topK("te", 10));
+        assertEquals(List.of("a"), trie.topK("test", 10));
+
+        assertTrue(trie.remove("team", "c"));
+        assertEquals(List.of("a"), trie.topK("te", 10));
+        assertTrue(trie.remove("tester", "a"));
+        assertEquals(List.of(), trie.topK("", 10));
+        assertEquals(0, trie.size());
+    }
+
+    @Test
+    void matchesBruteForce() {
+        Random random = new Random(42);
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        // khóa -> (giá trị -> trọng số); trọng số không trùng để thứ tự top-K xác định
+        Map<String, Map<Integer, Long>> expected = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        long nextWeight = 0;
+
+        for (int step = 0; step < 5000; step++) {
+            if (!keys.isEmpty() && random.nextInt(4) == 0) {
+                String key = keys.get(random.nextInt(keys.size()));
+                Map<Integer, Long> values = expected.get(key);
+                if (values.isEmpty()) continue;
+                Integer value = values.keySet().iterator().next();
+                values.remove(value);
+                assertTrue(trie.remove(key, value));
+            } else {
+                String key = randomKey(random);
+                int value = random.nextInt(200);
+                long weight = (nextWeight++) * 7919 % 100_003;
+                keys.add(key);
+                expected.computeIfAbsent(key, k -> new HashMap<>()).put(value, weight);
+                trie.put(key, value, weight);
+            }
+
+            if (step % 50 == 0) {
+                String prefix = randomKey(random).substring(0, random.nextInt(3));
+                assertEquals(bruteForce(expected, prefix, 5), trie.topK(prefix, 5), "prefix=" + prefix);
+            }
+        }
+        assertEquals(expected.values().stream().mapToInt(Map::size).sum(), trie.size());
+    }
+
+    private static String randomKey(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = 2 + random.nextInt(5);
+        for (int i = 0; i < length; i++) sb.append((char) ('a' + random.nextInt(3)));
+        return sb.toString();
+    }
+
+    private static List<Integer> bruteForce(Map<String, Map<Integer, Long>> entries, String prefix, int limit) {
+        Map<Integer, Long> best = new HashMap<>();
+        entries.forEach((key, values) -> {
+            if (key.startsWith(prefix)) values.forEach((value, weight) -> best.merge(value, weight, Math::max));
+        });
+        List<Integer> sorted = new ArrayList<>(best.keySet());
+        sorted.sort(Comparator.comparingLong((Integer v) -> best.get(v)).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.job.backend.util;
+
+import com.job.backend.util.SalaryParser.SalaryRange;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalaryParserTest {
+
+    private static final long USD = 25_000;
+
+    @Test
+    void rangeInMillions() {
+        assertRange(10_000_000, 15_000_000, SalaryParser.parse("10-15 triệu", USD));
+        assertRange(8_000_000, 12_000_000, SalaryParser.parse("8 - 12", USD));
+        assertRange(1_500_000_000, 1_500_000_000, SalaryParser.parse("1,5 tỷ", USD));
+        assertRange(12_000_000, 12_000_000, SalaryParser.parse("12.000.000 VNĐ", USD));
+        assertRange(12_000_000, 12_000_000, SalaryParser.parse("12.000.000vnd", USD));
+        assertRange(15_000_000, 15_000_000, SalaryParser.parse("15000000đ", USD));
+    }
+
+    @Test
+    void openRangesAreClosed() {
+        assertRange(20_000_000, 20_000_000, SalaryParser.parse("Trên 20tr", USD));
+        assertRange(20_000_000, 20_000_000, SalaryParser.parse("Từ 20 triệu", USD));
+        assertRange(0, 10_000_000, SalaryParser.parse("Dưới 10 triệu", USD));
+        assertRange(0, 30_000_000, SalaryParser.parse("Up to 30M", USD));
+    }
+
+    @Test
+    void usdIsConverted() {
+        assertRange(25_000_000, 25_000_000, SalaryParser.parse("$1000", USD));
+        assertRange(25_000_000, 37_500_000, SalaryParser.parse("1,000 - 1,500 USD", USD));
+        assertRange(50_000_000, 50_000_000, SalaryParser.parse("Over $2k", USD));
+        // đơn vị dính liền số
+        assertRange(25_000_000, 25_000_000, SalaryParser.parse("1000usd", USD));
+        assertRange(37_500_000, 37_500_000, SalaryParser.parse("1500USD", USD));
+        assertRange(25_000_000, 37_500_000, SalaryParser.parse("1000-1500usd", USD));
+    }
+
+    @Test
+    void negotiable() {
+        SalaryRange range = SalaryParser.parse("Thỏa thuận", USD);
+        assertTrue(range.negotiable());
+        assertNull(range.min());
+        assertNull(range.max());
+
+        SalaryRange withAmount = SalaryParser.parse("15-20 triệu (có thể thỏa thuận)", USD);
+        assertTrue(withAmount.negotiable());
+        assertRange(15_000_000, 20_000_000, withAmount);
+    }
+
+    @Test
+    void emptyText() {
+        assertEquals(SalaryRange.EMPTY, SalaryParser.parse(null, USD));
+        assertEquals(SalaryRange.EMPTY, SalaryParser.parse("   ", USD));
+        SalaryRange noNumber = SalaryParser.parse("Hấp dẫn", USD);
+        assertNull(noNumber.min());
+        assertFalse(noNumber.negotiable());
+    }
+
+    private static void assertRange(long min, long max, SalaryRange range) {
+        assertEquals(min, range.min());
+        assertEquals(max, range.max());
+    }
+}